@@ -1,17 +1,26 @@
 package io.xpipe.app.beacon;
 
+import io.xpipe.app.ext.ShellStore;
+import io.xpipe.app.storage.DataStoreEntry;
 import io.xpipe.beacon.BeaconClientException;
+import io.xpipe.core.process.ShellControl;
 
 import lombok.Value;
 
-import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Value
 public class AppBeaconCache {
 
-    Set<BeaconShellSession> shellSessions = new HashSet<>();
+    // Sessions can be started by multiple requests concurrently
+    Set<BeaconShellSession> shellSessions = ConcurrentHashMap.newKeySet();
+
+    Map<UUID, ReentrantLock> shellSessionLocks = new ConcurrentHashMap<>();
 
     public BeaconShellSession getShellSession(UUID uuid) throws BeaconClientException {
         var found = shellSessions.stream()
@@ -23,4 +32,75 @@ public class AppBeaconCache {
         }
         return found.get();
     }
+
+    public Optional<BeaconShellSession> getShellSessionIfPresent(DataStoreEntry e) {
+        return shellSessions.stream()
+                .filter(beaconShellSession -> beaconShellSession.getEntry().equals(e))
+                .findFirst();
+    }
+
+    public BeaconShellSession startShellSession(DataStoreEntry e) throws Exception {
+        var s = getShellStore(e);
+
+        // Otherwise, concurrent requests for the same connection could each start their own session
+        var lock = shellSessionLocks.computeIfAbsent(e.getUuid(), k -> new ReentrantLock());
+        lock.lock();
+        try {
+            var existing = getShellSessionIfPresent(e);
+            if (existing.isPresent()) {
+                prepareControl(existing.get().getControl());
+                return existing.get();
+            }
+
+            var control = s.standaloneControl();
+            prepareControl(control);
+            var session = new BeaconShellSession(e, control);
+            shellSessions.add(session);
+            return session;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Starts a shell that is not tracked as a session, the caller has to close it
+    public ShellControl startUntrackedShell(DataStoreEntry e) throws Exception {
+        var control = getShellStore(e).standaloneControl();
+        prepareControl(control);
+        return control;
+    }
+
+    // Keeps a shell started via startUntrackedShell open as a session
+    // Returns false if another session has been started in the meantime, the caller then still has to close it
+    public boolean registerShellSession(DataStoreEntry e, ShellControl control) {
+        var lock = shellSessionLocks.computeIfAbsent(e.getUuid(), k -> new ReentrantLock());
+        lock.lock();
+        try {
+            if (getShellSessionIfPresent(e).isPresent()) {
+                return false;
+            }
+
+            shellSessions.add(new BeaconShellSession(e, control));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static ShellStore getShellStore(DataStoreEntry e) throws BeaconClientException {
+        if (!(e.getStore() instanceof ShellStore s)) {
+            throw new BeaconClientException("Not a shell connection");
+        }
+        return s;
+    }
+
+    private static void prepareControl(ShellControl control) throws Exception {
+        control.setNonInteractive();
+        control.start();
+
+        var d = control.getShellDialect().getDumbMode();
+        if (!d.supportsAnyPossibleInteraction()) {
+            control.close();
+            d.throwIfUnsupported();
+        }
+    }
 }
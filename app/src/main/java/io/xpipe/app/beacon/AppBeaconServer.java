@@ -19,6 +19,7 @@ import java.net.InetSocketAddress;
 import java.nio.file.Files;
 import java.nio.file.attribute.PosixFilePermissions;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -38,7 +39,7 @@ public class AppBeaconServer {
     private HttpServer server;
 
     @Getter
-    private final Set<BeaconSession> sessions = new HashSet<>();
+    private final Set<BeaconSession> sessions = ConcurrentHashMap.newKeySet();
 
     @Getter
     private final AppBeaconCache cache = new AppBeaconCache();
@@ -130,17 +131,10 @@ public class AppBeaconServer {
     }
 
     private void start() throws IOException {
-        executor = Executors.newFixedThreadPool(5, r -> {
-            Thread t = Executors.defaultThreadFactory().newThread(r);
-            t.setDaemon(true);
-            t.setName("http handler");
-            t.setUncaughtExceptionHandler((t1, e) -> {
-                ErrorEvent.fromThrowable(e).handle();
-            });
-            return t;
-        });
+        executor = createExecutor();
         server = HttpServer.create(
-                new InetSocketAddress(Inet4Address.getByAddress(new byte[] {0x7f, 0x00, 0x00, 0x01}), port), 10);
+                new InetSocketAddress(Inet4Address.getByAddress(new byte[] {0x7f, 0x00, 0x00, 0x01}), port),
+                BeaconConfig.getHttpBacklog());
         BeaconInterface.getAll().forEach(beaconInterface -> {
             server.createContext(beaconInterface.getPath(), new BeaconRequestHandler<>(beaconInterface));
         });
@@ -154,6 +148,29 @@ public class AppBeaconServer {
         running = true;
     }
 
+    private ExecutorService createExecutor() {
+        Thread.UncaughtExceptionHandler handler = (t, e) -> {
+            ErrorEvent.fromThrowable(e).handle();
+        };
+
+        // Handlers block on shell IO, so a small fixed pool can easily be exhausted by a few slow requests
+        var threads = BeaconConfig.getHttpThreadCount();
+        if (threads <= 0) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual()
+                    .name("http handler-", 0)
+                    .uncaughtExceptionHandler(handler)
+                    .factory());
+        }
+
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread t = Executors.defaultThreadFactory().newThread(r);
+            t.setDaemon(true);
+            t.setName("http handler");
+            t.setUncaughtExceptionHandler(handler);
+            return t;
+        });
+    }
+
     private void handleCatchAll(HttpExchange exchange) throws IOException {
         exchange.getResponseHeaders().add("Location", DocumentationLink.API.getLink());
         exchange.sendResponseHeaders(HttpURLConnection.HTTP_SEE_OTHER, 0);
@@ -17,13 +17,25 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class BeaconRequestHandler<T> implements HttpHandler {
 
+    // Monitors would pin the virtual handler threads while waiting, so locks are used instead
+    private static final Map<Object, ReentrantLock> SYNCHRONIZATION_LOCKS =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
     private final BeaconInterface<T> beaconInterface;
+    private final Semaphore concurrencyLimit;
 
     public BeaconRequestHandler(BeaconInterface<T> beaconInterface) {
         this.beaconInterface = beaconInterface;
+        var max = beaconInterface.getMaxConcurrentRequests();
+        this.concurrencyLimit = max > 0 ? new Semaphore(max, true) : null;
     }
 
     @Override
@@ -64,7 +76,23 @@ public class BeaconRequestHandler<T> implements HttpHandler {
             }
         }
 
-        handleAuthenticatedRequest(exchange);
+        if (concurrencyLimit == null) {
+            handleAuthenticatedRequest(exchange);
+            return;
+        }
+
+        try {
+            concurrencyLimit.acquire();
+        } catch (InterruptedException e) {
+            writeError(exchange, new BeaconClientErrorResponse("Request was interrupted"), 503);
+            return;
+        }
+
+        try {
+            handleAuthenticatedRequest(exchange);
+        } finally {
+            concurrencyLimit.release();
+        }
     }
 
     private void handleAuthenticatedRequest(HttpExchange exchange) {
@@ -99,8 +127,12 @@ public class BeaconRequestHandler<T> implements HttpHandler {
 
             var sync = beaconInterface.getSynchronizationObject();
             if (sync != null) {
-                synchronized (sync) {
+                var lock = SYNCHRONIZATION_LOCKS.computeIfAbsent(sync, o -> new ReentrantLock());
+                lock.lock();
+                try {
                     response = beaconInterface.handle(exchange, object);
+                } finally {
+                    lock.unlock();
                 }
             } else {
                 response = beaconInterface.handle(exchange, object);
@@ -1,33 +1,54 @@
 package io.xpipe.app.beacon;
 
 import io.xpipe.app.issue.ErrorEvent;
+import io.xpipe.app.util.GlobalTimer;
 import io.xpipe.app.util.ShellTemp;
 import io.xpipe.beacon.BeaconClientException;
 
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import org.apache.commons.io.FileUtils;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 public class BlobManager {
 
     private static final Path TEMP = ShellTemp.getLocalTempDataDirectory("blob");
+    private static final int MAX_MEMORY_BLOB_SIZE = 16 * 1024 * 1024;
+    private static final long MAX_MEMORY_SIZE = 128 * 1024 * 1024;
+    private static final Duration BLOB_LIFETIME = Duration.ofHours(1);
+    private static final Duration CLEANUP_INTERVAL = Duration.ofMinutes(5);
     private static BlobManager INSTANCE;
-    private final Map<UUID, byte[]> memoryBlobs = new ConcurrentHashMap<>();
-    private final Map<UUID, Path> fileBlobs = new ConcurrentHashMap<>();
+
+    // Access ordered, so the least recently used blobs are spilled to disk first
+    private final Map<UUID, Blob> blobs = new LinkedHashMap<>(16, 0.75f, true);
+    private long memorySize;
 
     public static BlobManager get() {
         return INSTANCE;
     }
 
     public static void init() {
-        INSTANCE = new BlobManager();
+        var manager = new BlobManager();
+        INSTANCE = manager;
+        // Expired blobs are also removed when no further requests arrive
+        GlobalTimer.scheduleUntil(CLEANUP_INTERVAL, () -> {
+            if (INSTANCE != manager) {
+                return true;
+            }
+
+            manager.removeExpired();
+            return false;
+        });
         try {
             FileUtils.forceMkdir(TEMP.toFile());
             try {
@@ -48,35 +69,120 @@ public class BlobManager {
         INSTANCE = null;
     }
 
-    public Path newBlobFile() throws IOException {
-        var file = TEMP.resolve(UUID.randomUUID().toString());
-        FileUtils.forceMkdir(file.getParent().toFile());
-        return file;
-    }
+    public void store(UUID uuid, InputStream in, long contentLength) throws IOException {
+        removeExpired();
 
-    public void store(UUID uuid, byte[] blob) {
-        memoryBlobs.put(uuid, blob);
-    }
+        // The content length is only a hint, the actual amount of data decides where it is stored
+        if (contentLength < 0 || contentLength <= MAX_MEMORY_BLOB_SIZE) {
+            var bytes = in.readNBytes(MAX_MEMORY_BLOB_SIZE + 1);
+            if (bytes.length <= MAX_MEMORY_BLOB_SIZE) {
+                putMemoryBlob(uuid, bytes);
+                return;
+            }
+
+            in = new SequenceInputStream(new ByteArrayInputStream(bytes), in);
+        }
 
-    public void store(UUID uuid, InputStream blob) throws IOException {
         var file = TEMP.resolve(uuid.toString());
+        Files.createDirectories(TEMP);
         try (var fileOut = Files.newOutputStream(file)) {
-            blob.transferTo(fileOut);
+            in.transferTo(fileOut);
+        }
+        synchronized (this) {
+            blobs.put(uuid, new Blob(null, file, Files.size(file), System.currentTimeMillis()));
         }
-        fileBlobs.put(uuid, file);
     }
 
-    public InputStream getBlob(UUID uuid) throws Exception {
-        var memory = memoryBlobs.get(uuid);
-        if (memory != null) {
-            return new ByteArrayInputStream(memory);
+    public synchronized InputStream getBlob(UUID uuid) throws Exception {
+        // Blobs can be moved to disk at any time, so the stream has to be opened while holding the lock
+        var blob = access(uuid);
+        if (blob.getMemory() != null) {
+            return new ByteArrayInputStream(blob.getMemory());
         }
 
-        var found = fileBlobs.get(uuid);
+        return Files.newInputStream(blob.getFile());
+    }
+
+    public long getBlobSize(UUID uuid) throws Exception {
+        return access(uuid).getSize();
+    }
+
+    public synchronized void remove(UUID uuid) {
+        var blob = blobs.remove(uuid);
+        if (blob != null) {
+            release(blob);
+        }
+    }
+
+    private void release(Blob blob) {
+        if (blob.getMemory() != null) {
+            memorySize -= blob.getMemory().length;
+        } else {
+            FileUtils.deleteQuietly(blob.getFile().toFile());
+        }
+    }
+
+    private synchronized Blob access(UUID uuid) throws BeaconClientException {
+        removeExpired();
+
+        var found = blobs.get(uuid);
         if (found == null) {
             throw new BeaconClientException("No saved data known for id " + uuid);
         }
 
-        return Files.newInputStream(found);
+        found.lastAccess = System.currentTimeMillis();
+        return found;
+    }
+
+    private void putMemoryBlob(UUID uuid, byte[] bytes) throws IOException {
+        synchronized (this) {
+            blobs.put(uuid, new Blob(bytes, null, bytes.length, System.currentTimeMillis()));
+            memorySize += bytes.length;
+            if (memorySize <= MAX_MEMORY_SIZE) {
+                return;
+            }
+
+            // Move the least recently used blobs out of the heap until the budget is met again
+            Files.createDirectories(TEMP);
+            for (var entry : blobs.entrySet()) {
+                if (memorySize <= MAX_MEMORY_SIZE) {
+                    break;
+                }
+
+                var blob = entry.getValue();
+                if (blob.getMemory() == null) {
+                    continue;
+                }
+
+                var file = TEMP.resolve(entry.getKey().toString());
+                Files.write(file, blob.getMemory());
+                memorySize -= blob.getMemory().length;
+                blob.file = file;
+                blob.memory = null;
+            }
+        }
+    }
+
+    private synchronized void removeExpired() {
+        var limit = System.currentTimeMillis() - BLOB_LIFETIME.toMillis();
+        var it = blobs.values().iterator();
+        while (it.hasNext()) {
+            var blob = it.next();
+            if (blob.lastAccess >= limit) {
+                continue;
+            }
+
+            it.remove();
+            release(blob);
+        }
+    }
+
+    @AllArgsConstructor
+    @Getter
+    private static class Blob {
+        private byte[] memory;
+        private Path file;
+        private final long size;
+        private long lastAccess;
     }
 }
@@ -1,6 +1,5 @@
 package io.xpipe.app.beacon.impl;
 
-import io.xpipe.app.storage.DataStorage;
 import io.xpipe.app.storage.DataStorageQuery;
 import io.xpipe.beacon.api.ConnectionQueryExchange;
 
@@ -15,9 +14,4 @@ public class ConnectionQueryExchangeImpl extends ConnectionQueryExchange {
                 .found(found.stream().map(entry -> entry.getUuid()).toList())
                 .build();
     }
-
-    @Override
-    public Object getSynchronizationObject() {
-        return DataStorage.get();
-    }
 }
@@ -0,0 +1,34 @@
+package io.xpipe.app.beacon.impl;
+
+import io.xpipe.app.issue.ErrorEvent;
+import io.xpipe.core.util.JacksonMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Writes newline-delimited json frames of streamed responses
+class FrameWriter {
+
+    private final OutputStream out;
+    private boolean failed;
+
+    FrameWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    synchronized void write(Object frame) {
+        // If the client has disconnected, the running commands are still allowed to finish
+        if (failed) {
+            return;
+        }
+
+        try {
+            out.write(JacksonMapper.getDefault().writeValueAsBytes(frame));
+            out.write('\n');
+            out.flush();
+        } catch (IOException ex) {
+            failed = true;
+            ErrorEvent.fromThrowable(ex).omit().expected().handle();
+        }
+    }
+}
@@ -14,12 +14,11 @@ public class FsBlobExchangeImpl extends FsBlobExchange {
     @SneakyThrows
     public Object handle(HttpExchange exchange, Request msg) {
         var id = UUID.randomUUID();
-
-        var size = exchange.getRequestBody().available();
-        if (size > 100_000_000) {
-            BlobManager.get().store(id, exchange.getRequestBody());
-        } else {
-            BlobManager.get().store(id, exchange.getRequestBody().readAllBytes());
+        var length = exchange.getRequestHeaders().getFirst("Content-Length");
+        // Chunked requests don't have a known length
+        var size = length != null ? Long.parseLong(length.strip()) : -1;
+        try (var in = exchange.getRequestBody()) {
+            BlobManager.get().store(id, in, size);
         }
         return Response.builder().blob(id).build();
     }
@@ -1,21 +1,28 @@
 package io.xpipe.app.beacon.impl;
 
 import io.xpipe.app.beacon.AppBeaconServer;
-import io.xpipe.app.beacon.BlobManager;
+import io.xpipe.app.browser.file.BrowserFileChecksum;
 import io.xpipe.app.ext.ConnectionFileSystem;
-import io.xpipe.app.util.FixedSizeInputStream;
 import io.xpipe.beacon.BeaconClientException;
 import io.xpipe.beacon.api.FsReadExchange;
+import io.xpipe.core.process.OsType;
+import io.xpipe.core.process.ShellControl;
+import io.xpipe.core.store.FilePath;
 
 import com.sun.net.httpserver.HttpExchange;
 import lombok.SneakyThrows;
+import lombok.Value;
 
-import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
-import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
 
 public class FsReadExchangeImpl extends FsReadExchange {
 
+    private static final int BUFFER_SIZE = 65536;
+
     @Override
     @SneakyThrows
     public Object handle(HttpExchange exchange, Request msg) {
@@ -27,34 +34,157 @@ public class FsReadExchangeImpl extends FsReadExchange {
         }
 
         var size = fs.getFileSize(msg.getPath());
-        if (size > 100_000_000) {
-            var file = BlobManager.get().newBlobFile();
-            try (var in = fs.openInput(msg.getPath())) {
-                var fixedIn = new FixedSizeInputStream(new BufferedInputStream(in), size);
-                try (var fileOut =
-                        Files.newOutputStream(file.resolve(msg.getPath().getFileName()))) {
-                    fixedIn.transferTo(fileOut);
+        var rangeHeader = exchange.getRequestHeaders().getFirst("Range");
+        // Invalid and unsupported range headers are ignored and answered with the full file
+        var range = rangeHeader != null ? Range.parse(rangeHeader, size) : null;
+        exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+        if (range == Range.UNSATISFIABLE) {
+            exchange.getResponseHeaders().add("Content-Range", "bytes */" + size);
+            exchange.sendResponseHeaders(416, -1);
+            return Response.builder().build();
+        }
+
+        var start = range != null ? range.getStart() : 0;
+        var length = range != null ? range.getLength() : size;
+        // Partial content is not compressed as the range would refer to the encoded bytes otherwise
+        var compress = range == null && acceptsGzip(exchange);
+
+        try (var in = openInput(shell.getControl(), fs, msg.getPath(), range)) {
+            try {
+                if (range != null) {
+                    exchange.getResponseHeaders()
+                            .add("Content-Range", "bytes " + start + "-" + (start + length - 1) + "/" + size);
+                }
+                if (compress) {
+                    // The compressed size is not known in advance, so the response is sent chunked
+                    exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                    exchange.sendResponseHeaders(200, 0);
+                } else {
+                    exchange.sendResponseHeaders(range != null ? 206 : 200, length != 0 ? length : -1);
                 }
+
+                try (var out = compress
+                        ? new GZIPOutputStream(exchange.getResponseBody(), BUFFER_SIZE)
+                        : exchange.getResponseBody()) {
+                    copy(in, out, length);
+                }
+            } finally {
+                // The remaining output has to be consumed for the shell to stay usable
                 in.transferTo(OutputStream.nullOutputStream());
             }
+        }
+        return Response.builder().build();
+    }
+
+    private static InputStream openInput(ShellControl sc, ConnectionFileSystem fs, FilePath file, Range range)
+            throws Exception {
+        if (range == null) {
+            return fs.openInput(file);
+        }
+
+        // Let the remote side only send the requested bytes if possible
+        if (sc.getOsType() != OsType.WINDOWS) {
+            return BrowserFileChecksum.openInputRange(sc, file, range.getStart(), range.getLength());
+        }
+
+        var in = fs.openInput(file);
+        try {
+            in.skipNBytes(range.getStart());
+        } catch (Exception ex) {
+            in.close();
+            throw ex;
+        }
+        return in;
+    }
+
+    private static boolean acceptsGzip(HttpExchange exchange) {
+        var accept = exchange.getRequestHeaders().get("Accept-Encoding");
+        if (accept == null) {
+            return false;
+        }
+
+        return accept.stream()
+                .flatMap(s -> Arrays.stream(s.split(",")))
+                .map(s -> s.split(";")[0].strip())
+                .anyMatch(s -> s.equalsIgnoreCase("gzip"));
+    }
+
+    private static void copy(InputStream in, OutputStream out, long length) throws IOException {
+        var buffer = new byte[BUFFER_SIZE];
+        var remaining = length;
+        while (remaining > 0) {
+            var read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read == -1) {
+                // The file has been truncated in the meantime, but the announced length has to be sent anyway
+                Arrays.fill(buffer, (byte) 0);
+                read = (int) Math.min(buffer.length, remaining);
+            }
+            out.write(buffer, 0, read);
+            remaining -= read;
+        }
+    }
+
+    @Value
+    static class Range {
+
+        static final Range UNSATISFIABLE = new Range(-1, 0);
 
-            exchange.sendResponseHeaders(200, size);
-            try (var fileIn = Files.newInputStream(file);
-                    var out = exchange.getResponseBody()) {
-                fileIn.transferTo(out);
+        long start;
+        long length;
+
+        // Returns null for headers that have to be ignored, e.g. invalid or multiple ranges
+        static Range parse(String header, long size) {
+            var value = header.strip();
+            if (!value.startsWith("bytes=") || value.contains(",")) {
+                return null;
             }
-        } else {
-            byte[] bytes;
-            try (var in = fs.openInput(msg.getPath())) {
-                var fixedIn = new FixedSizeInputStream(new BufferedInputStream(in), size);
-                bytes = fixedIn.readAllBytes();
-                in.transferTo(OutputStream.nullOutputStream());
+
+            var spec = value.substring("bytes=".length()).strip();
+            var dash = spec.indexOf('-');
+            if (dash == -1) {
+                return null;
             }
-            exchange.sendResponseHeaders(200, bytes.length);
-            try (var out = exchange.getResponseBody()) {
-                out.write(bytes);
+
+            var first = spec.substring(0, dash).strip();
+            var last = spec.substring(dash + 1).strip();
+            if (!isDigits(first) || !isDigits(last)) {
+                return null;
+            }
+
+            try {
+                if (first.isEmpty()) {
+                    if (last.isEmpty()) {
+                        return null;
+                    }
+
+                    // A suffix range specifies the amount of bytes at the end
+                    var suffix = Long.parseLong(last);
+                    if (suffix == 0 || size == 0) {
+                        return UNSATISFIABLE;
+                    }
+                    var length = Math.min(suffix, size);
+                    return new Range(size - length, length);
+                }
+
+                var start = Long.parseLong(first);
+                var lastPos = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+                if (lastPos < start) {
+                    return null;
+                }
+                if (start >= size) {
+                    return UNSATISFIABLE;
+                }
+
+                var end = Math.min(lastPos, size - 1);
+                return new Range(start, end - start + 1);
+            } catch (NumberFormatException ex) {
+                // Too large to be represented
+                return null;
             }
         }
-        return Response.builder().build();
+
+        private static boolean isDigits(String s) {
+            return s.chars().allMatch(c -> c >= '0' && c <= '9');
+        }
     }
 }
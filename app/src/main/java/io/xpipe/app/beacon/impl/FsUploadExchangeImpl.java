@@ -0,0 +1,116 @@
+package io.xpipe.app.beacon.impl;
+
+import io.xpipe.app.beacon.AppBeaconServer;
+import io.xpipe.app.beacon.BlobManager;
+import io.xpipe.app.ext.ConnectionFileSystem;
+import io.xpipe.app.issue.ErrorEvent;
+import io.xpipe.beacon.BeaconClientException;
+import io.xpipe.beacon.api.FsUploadExchange;
+import io.xpipe.core.process.ShellControl;
+import io.xpipe.core.store.FilePath;
+
+import com.sun.net.httpserver.HttpExchange;
+import lombok.SneakyThrows;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+public class FsUploadExchangeImpl extends FsUploadExchange {
+
+    @Override
+    @SneakyThrows
+    public Object handle(HttpExchange exchange, Request msg) {
+        var query = parseQuery(exchange.getRequestURI().getRawQuery());
+        var connection = query.get("connection");
+        var path = query.get("path");
+        if (connection == null || path == null) {
+            throw new BeaconClientException("Missing connection or path query parameter");
+        }
+
+        UUID connectionId;
+        try {
+            connectionId = UUID.fromString(connection);
+        } catch (IllegalArgumentException ex) {
+            throw new BeaconClientException("Invalid connection id " + connection);
+        }
+
+        var shell = AppBeaconServer.get().getCache().getShellSession(connectionId);
+        var fs = new ConnectionFileSystem(shell.getControl());
+        var length = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (length != null) {
+            try (var in = exchange.getRequestBody()) {
+                upload(shell.getControl(), fs, FilePath.of(path), in, Long.parseLong(length.strip()));
+            }
+            return Response.builder().build();
+        }
+
+        // The file write command requires the size in advance, so chunked uploads have to be staged first
+        var blob = UUID.randomUUID();
+        try (var in = exchange.getRequestBody()) {
+            BlobManager.get().store(blob, in, -1);
+        }
+        try {
+            var size = BlobManager.get().getBlobSize(blob);
+            try (var in = BlobManager.get().getBlob(blob)) {
+                upload(shell.getControl(), fs, FilePath.of(path), in, size);
+            }
+        } finally {
+            BlobManager.get().remove(blob);
+        }
+        return Response.builder().build();
+    }
+
+    private static void upload(ShellControl sc, ConnectionFileSystem fs, FilePath target, InputStream in, long size)
+            throws Exception {
+        var os = fs.openOutput(target, size);
+        long transferred;
+        try {
+            transferred = in.transferTo(os);
+        } catch (IOException ex) {
+            abort(sc, fs, target);
+            throw ex;
+        }
+
+        if (transferred < size) {
+            // The write command still waits for the missing bytes and would block the shell forever
+            abort(sc, fs, target);
+            throw new BeaconClientException(
+                    "Upload ended after " + transferred + " of " + size + " bytes, the partial file has been removed");
+        }
+        os.close();
+    }
+
+    private static void abort(ShellControl sc, ConnectionFileSystem fs, FilePath target) {
+        try {
+            sc.kill();
+            sc.restart();
+            fs.delete(target);
+        } catch (Exception ex) {
+            ErrorEvent.fromThrowable(ex).omit().expected().handle();
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        var map = new HashMap<String, String>();
+        if (query == null) {
+            return map;
+        }
+
+        for (var pair : query.split("&")) {
+            var split = pair.indexOf('=');
+            if (split == -1) {
+                continue;
+            }
+
+            map.put(
+                    URLDecoder.decode(pair.substring(0, split), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(split + 1), StandardCharsets.UTF_8));
+        }
+        return map;
+    }
+}
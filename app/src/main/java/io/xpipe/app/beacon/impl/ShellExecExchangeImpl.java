@@ -1,11 +1,19 @@
 package io.xpipe.app.beacon.impl;
 
 import io.xpipe.app.beacon.AppBeaconServer;
+import io.xpipe.app.util.ThreadHelper;
 import io.xpipe.beacon.api.ShellExecExchange;
+import io.xpipe.core.process.CommandControl;
+import io.xpipe.core.util.JacksonMapper;
 
 import com.sun.net.httpserver.HttpExchange;
 import lombok.SneakyThrows;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class ShellExecExchangeImpl extends ShellExecExchange {
@@ -14,20 +22,171 @@ public class ShellExecExchangeImpl extends ShellExecExchange {
     @SneakyThrows
     public Object handle(HttpExchange exchange, Request msg) {
         var existing = AppBeaconServer.get().getCache().getShellSession(msg.getConnection());
-        AtomicReference<String> out = new AtomicReference<>();
-        AtomicReference<String> err = new AtomicReference<>();
-        long exitCode;
+        if (!msg.isStream() && msg.getMaxOutputBytes() == null) {
+            AtomicReference<String> out = new AtomicReference<>();
+            AtomicReference<String> err = new AtomicReference<>();
+            long exitCode;
+            try (var command = existing.getControl().command(msg.getCommand()).start()) {
+                var r = command.readStdoutAndStderr();
+                out.set(r[0]);
+                err.set(r[1]);
+                command.close();
+                exitCode = command.getExitCode();
+            }
+            return Response.builder()
+                    .stdout(out.get())
+                    .stderr(err.get())
+                    .exitCode(exitCode)
+                    .build();
+        }
+
+        var limit = msg.getMaxOutputBytes() != null ? Math.max(0, msg.getMaxOutputBytes()) : Long.MAX_VALUE;
         try (var command = existing.getControl().command(msg.getCommand()).start()) {
-            var r = command.readStdoutAndStderr();
-            out.set(r[0]);
-            err.set(r[1]);
+            if (msg.isStream()) {
+                exchange.getResponseHeaders().add("Content-Type", "application/x-ndjson");
+                exchange.sendResponseHeaders(200, 0);
+                try (var out = exchange.getResponseBody()) {
+                    var sink = new FrameSink(out, limit);
+                    pump(command, sink);
+                    command.close();
+                    sink.writeExit(command.getExitCode());
+                }
+                // The response has already been sent
+                return null;
+            }
+
+            var sink = new BufferSink(limit);
+            pump(command, sink);
             command.close();
-            exitCode = command.getExitCode();
+            return Response.builder()
+                    .stdout(sink.getStdout())
+                    .stderr(sink.getStderr())
+                    .exitCode(command.getExitCode())
+                    .truncated(sink.isTruncated())
+                    .build();
+        }
+    }
+
+    static void pump(CommandControl command, Sink sink) throws Exception {
+        // Both streams have to be read at the same time, otherwise the command might block on a full pipe
+        var stderrException = new AtomicReference<Exception>();
+        var stderrThread = ThreadHelper.runAsync(() -> {
+            try {
+                read(command.getStderr(), command, sink, true);
+            } catch (Exception ex) {
+                stderrException.set(ex);
+            }
+        });
+        read(command.getStdout(), command, sink, false);
+        stderrThread.join();
+        if (stderrException.get() != null) {
+            throw stderrException.get();
+        }
+    }
+
+    private static void read(InputStream in, CommandControl command, Sink sink, boolean stderr) throws IOException {
+        var reader = new InputStreamReader(in, command.getCharset());
+        var buffer = new char[8192];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            sink.accept(new String(buffer, 0, read), stderr);
+        }
+    }
+
+    abstract static class Sink {
+
+        private long remaining;
+        private boolean truncated;
+
+        private Sink(long limit) {
+            this.remaining = limit;
+        }
+
+        synchronized void accept(String s, boolean stderr) {
+            if (truncated) {
+                return;
+            }
+
+            var bytes = s.getBytes(StandardCharsets.UTF_8).length;
+            if (bytes > remaining) {
+                s = truncate(s, remaining);
+                truncated = true;
+            }
+            remaining -= bytes;
+            if (!s.isEmpty()) {
+                write(s, stderr);
+            }
+        }
+
+        synchronized boolean isTruncated() {
+            return truncated;
+        }
+
+        abstract void write(String s, boolean stderr);
+
+        private static String truncate(String s, long maxBytes) {
+            // Cut at a code point boundary to not produce invalid characters
+            long bytes = 0;
+            int index = 0;
+            while (index < s.length()) {
+                var cp = s.codePointAt(index);
+                var length = cp < 0x80 ? 1 : cp < 0x800 ? 2 : cp < 0x10000 ? 3 : 4;
+                if (bytes + length > maxBytes) {
+                    break;
+                }
+                bytes += length;
+                index += Character.charCount(cp);
+            }
+            return s.substring(0, index);
+        }
+    }
+
+    static class BufferSink extends Sink {
+
+        private final StringBuilder stdout = new StringBuilder();
+        private final StringBuilder stderr = new StringBuilder();
+
+        BufferSink(long limit) {
+            super(limit);
+        }
+
+        @Override
+        void write(String s, boolean stderr) {
+            (stderr ? this.stderr : stdout).append(s);
+        }
+
+        synchronized String getStdout() {
+            return stdout.toString();
+        }
+
+        synchronized String getStderr() {
+            return stderr.toString();
+        }
+    }
+
+    private static class FrameSink extends Sink {
+
+        private final FrameWriter writer;
+
+        private FrameSink(OutputStream out, long limit) {
+            super(limit);
+            this.writer = new FrameWriter(out);
+        }
+
+        @Override
+        void write(String s, boolean stderr) {
+            var frame = JacksonMapper.getDefault().createObjectNode();
+            frame.put("type", stderr ? "stderr" : "stdout");
+            frame.put("data", s);
+            writer.write(frame);
+        }
+
+        synchronized void writeExit(long exitCode) {
+            var frame = JacksonMapper.getDefault().createObjectNode();
+            frame.put("type", "exit");
+            frame.put("exitCode", exitCode);
+            frame.put("truncated", isTruncated());
+            writer.write(frame);
         }
-        return Response.builder()
-                .stdout(out.get())
-                .stderr(err.get())
-                .exitCode(exitCode)
-                .build();
     }
 }
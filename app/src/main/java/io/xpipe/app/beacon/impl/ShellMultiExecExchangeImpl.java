@@ -0,0 +1,110 @@
+package io.xpipe.app.beacon.impl;
+
+import io.xpipe.app.beacon.AppBeaconServer;
+import io.xpipe.app.ext.ShellStore;
+import io.xpipe.app.issue.ErrorEvent;
+import io.xpipe.app.storage.DataStorage;
+import io.xpipe.app.storage.DataStorageQuery;
+import io.xpipe.app.storage.DataStoreEntry;
+import io.xpipe.beacon.api.ShellMultiExecExchange;
+import io.xpipe.core.process.ShellControl;
+import io.xpipe.core.util.JacksonMapper;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import lombok.SneakyThrows;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+public class ShellMultiExecExchangeImpl extends ShellMultiExecExchange {
+
+    private static final int DEFAULT_PARALLELISM = 16;
+    private static final int MAX_PARALLELISM = 128;
+
+    @Override
+    @SneakyThrows
+    public Object handle(HttpExchange exchange, Request msg) {
+        // Connections that can't run commands are skipped, this allows for broad filters
+        var entries = DataStorageQuery.query(msg.getCategoryFilter(), msg.getConnectionFilter(), msg.getTypeFilter())
+                .stream()
+                .filter(e -> e.getStore() instanceof ShellStore)
+                .toList();
+        var parallelism = msg.getParallelism() != null
+                ? Math.max(1, Math.min(MAX_PARALLELISM, msg.getParallelism()))
+                : DEFAULT_PARALLELISM;
+        var limit = msg.getMaxOutputBytes() != null ? Math.max(0, msg.getMaxOutputBytes()) : Long.MAX_VALUE;
+        var closeSessions = msg.getCloseSessions() == null || msg.getCloseSessions();
+
+        exchange.getResponseHeaders().add("Content-Type", "application/x-ndjson");
+        exchange.sendResponseHeaders(200, 0);
+        try (var out = exchange.getResponseBody()) {
+            var writer = new FrameWriter(out);
+            var semaphore = new Semaphore(parallelism);
+            // Closing the executor waits for all submitted tasks
+            try (var executor = Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("multi exec-", 0).factory())) {
+                for (var entry : entries) {
+                    executor.submit(() -> {
+                        semaphore.acquireUninterruptibly();
+                        try {
+                            writer.write(execute(entry, msg.getCommand(), limit, closeSessions));
+                        } finally {
+                            semaphore.release();
+                        }
+                    });
+                }
+            }
+
+            var done = JacksonMapper.getDefault().createObjectNode();
+            done.put("type", "done");
+            done.put("count", entries.size());
+            writer.write(done);
+        }
+        // The response has already been sent
+        return null;
+    }
+
+    private ObjectNode execute(DataStoreEntry entry, String command, long limit, boolean closeSessions) {
+        var frame = JacksonMapper.getDefault().createObjectNode();
+        frame.put("connection", entry.getUuid().toString());
+        frame.put("name", DataStorage.get().getStorePath(entry).toString());
+        ShellControl shell = null;
+        try {
+            // Existing sessions might be used by other requests at the same time, so we always use our own shell
+            shell = AppBeaconServer.get().getCache().startUntrackedShell(entry);
+            try (var control = shell.command(command).start()) {
+                var sink = new ShellExecExchangeImpl.BufferSink(limit);
+                ShellExecExchangeImpl.pump(control, sink);
+                control.close();
+                frame.put("type", "result");
+                frame.put("exitCode", control.getExitCode());
+                frame.put("stdout", sink.getStdout());
+                frame.put("stderr", sink.getStderr());
+                frame.put("truncated", sink.isTruncated());
+            }
+        } catch (Exception ex) {
+            // A failing host should not abort the whole operation
+            ErrorEvent.fromThrowable(ex).omit().expected().handle();
+            frame.put("type", "error");
+            frame.put("message", ex.getMessage() != null ? ex.getMessage() : ex.getClass().getSimpleName());
+        } finally {
+            if (shell != null && !keepSession(entry, shell, closeSessions)) {
+                try {
+                    shell.close();
+                } catch (Exception ex) {
+                    ErrorEvent.fromThrowable(ex).omit().expected().handle();
+                }
+            }
+        }
+        return frame;
+    }
+
+    private boolean keepSession(DataStoreEntry entry, ShellControl shell, boolean closeSessions) {
+        if (closeSessions || !shell.isRunning(true)) {
+            return false;
+        }
+
+        return AppBeaconServer.get().getCache().registerShellSession(entry, shell);
+    }
+}
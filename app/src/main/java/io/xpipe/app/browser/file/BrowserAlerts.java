@@ -3,6 +3,7 @@ package io.xpipe.app.browser.file;
 import io.xpipe.app.core.AppI18n;
 import io.xpipe.app.core.window.AppWindowHelper;
 import io.xpipe.app.storage.DataStorage;
+import io.xpipe.app.util.HumanReadableFormat;
 import io.xpipe.core.store.FileEntry;
 import io.xpipe.core.store.FileKind;
 import io.xpipe.core.store.FilePath;
@@ -74,6 +75,31 @@ public class BrowserAlerts {
                 .orElse(false);
     }
 
+    public static boolean showSyncAlert(List<FilePath> changed, int unchanged, long size, FileEntry target) {
+        return AppWindowHelper.showBlockingAlert(alert -> {
+                    alert.setTitle(AppI18n.get("syncAlertTitle"));
+                    alert.setHeaderText(AppI18n.get(
+                            "syncAlertHeader",
+                            changed.size(),
+                            HumanReadableFormat.byteCount(size),
+                            target.getPath(),
+                            unchanged));
+                    var namesHeader = AppI18n.get("syncAlertChangedFiles");
+                    var names = namesHeader + "\n"
+                            + changed.stream()
+                                    .limit(10)
+                                    .map(file -> "- " + file.getFileName())
+                                    .collect(Collectors.joining("\n"));
+                    if (changed.size() > 10) {
+                        names += "\n+ " + (changed.size() - 10) + " ...";
+                    }
+                    alert.getDialogPane().setContent(AppWindowHelper.alertContentText(names));
+                    alert.setAlertType(Alert.AlertType.CONFIRMATION);
+                })
+                .map(b -> b.getButtonData().isDefaultButton())
+                .orElse(false);
+    }
+
     public static boolean showDeleteAlert(BrowserFileSystemTabModel model, List<FileEntry> source) {
         var config =
                 DataStorage.get().getEffectiveCategoryConfig(model.getEntry().get());
@@ -0,0 +1,89 @@
+package io.xpipe.app.browser.file;
+
+import io.xpipe.app.util.CommandSupport;
+import io.xpipe.core.process.CommandBuilder;
+import io.xpipe.core.process.OsType;
+import io.xpipe.core.process.ShellControl;
+import io.xpipe.core.process.ShellDialects;
+import io.xpipe.core.store.FilePath;
+
+import java.io.InputStream;
+import java.util.Optional;
+
+public class BrowserFileChecksum {
+
+    public static boolean canResume(ShellControl source, ShellControl target) {
+        // We rely on tail and cat for seeking and appending
+        return source.getOsType() != OsType.WINDOWS && target.getOsType() != OsType.WINDOWS;
+    }
+
+    public static InputStream openInputAt(ShellControl sc, FilePath file, long offset) throws Exception {
+        return sc.command(CommandBuilder.of().add("tail", "-c", "+" + (offset + 1)).addFile(file))
+                .startExternalStdout();
+    }
+
+    public static InputStream openInputRange(ShellControl sc, FilePath file, long offset, long length)
+            throws Exception {
+        return sc.command(CommandBuilder.of()
+                        .add("tail", "-c", "+" + (offset + 1))
+                        .addFile(file)
+                        .add("|", "head", "-c", String.valueOf(length)))
+                .startExternalStdout();
+    }
+
+    public static void append(ShellControl sc, FilePath source, FilePath target) throws Exception {
+        sc.command(CommandBuilder.of()
+                        .add("cat")
+                        .addFile(source)
+                        .add(">>")
+                        .addFile(target)
+                        .add("&&", "rm", "-f")
+                        .addFile(source))
+                .execute();
+    }
+
+    public static boolean canComputeSha256(ShellControl sc) throws Exception {
+        // Windows always ships with either PowerShell or certutil
+        if (sc.getOsType() == OsType.WINDOWS) {
+            return true;
+        }
+
+        return CommandSupport.isInPath(sc, "sha256sum") || CommandSupport.isInPath(sc, "shasum");
+    }
+
+    public static Optional<String> computeSha256(ShellControl sc, FilePath file) throws Exception {
+        if (sc.getOsType() == OsType.WINDOWS) {
+            if (ShellDialects.isPowershell(sc)) {
+                return sc.command(CommandBuilder.of()
+                                .add("(Get-FileHash", "-Algorithm", "SHA256", "-LiteralPath")
+                                .addFile(file)
+                                .add(").Hash"))
+                        .readStdoutIfPossible()
+                        .map(s -> s.strip());
+            }
+
+            // The second line of the certutil output contains the hash
+            return sc.command(CommandBuilder.of()
+                            .add("certutil", "-hashfile")
+                            .addFile(file)
+                            .add("SHA256"))
+                    .readStdoutIfPossible()
+                    .flatMap(s -> s.lines().skip(1).findFirst())
+                    .map(s -> s.replaceAll("\\s", ""));
+        }
+
+        CommandBuilder command;
+        if (CommandSupport.isInPath(sc, "sha256sum")) {
+            command = CommandBuilder.of().add("sha256sum").addFile(file);
+        } else if (CommandSupport.isInPath(sc, "shasum")) {
+            command = CommandBuilder.of().add("shasum", "-a", "256").addFile(file);
+        } else {
+            return Optional.empty();
+        }
+
+        return sc.command(command)
+                .readStdoutIfPossible()
+                .map(s -> s.strip().split("\\s+")[0])
+                .filter(s -> !s.isEmpty());
+    }
+}
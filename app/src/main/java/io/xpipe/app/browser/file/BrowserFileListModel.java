@@ -110,8 +110,10 @@ public final class BrowserFileListModel {
         if (!skipExistCheck) {
             boolean exists;
             try {
-                exists = fileSystemModel.getFileSystem().fileExists(newFullPath)
-                        || fileSystemModel.getFileSystem().directoryExists(newFullPath);
+                exists = fileSystemModel
+                        .getFileSystem()
+                        .statFiles(List.of(newFullPath))
+                        .containsKey(newFullPath);
             } catch (Exception e) {
                 ErrorEvent.fromThrowable(e).handle();
                 return old;
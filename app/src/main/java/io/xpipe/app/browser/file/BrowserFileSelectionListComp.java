@@ -25,6 +25,7 @@ import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.Value;
 
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 @Value
@@ -34,11 +35,17 @@ public class BrowserFileSelectionListComp extends SimpleComp {
 
     ObservableList<BrowserEntry> list;
     Function<BrowserEntry, ObservableValue<String>> nameTransformation;
+    Consumer<BrowserEntry> onDoubleClick;
 
     public BrowserFileSelectionListComp(ObservableList<BrowserEntry> list) {
         this(list, entry -> new SimpleStringProperty(entry.getFileName()));
     }
 
+    public BrowserFileSelectionListComp(
+            ObservableList<BrowserEntry> list, Function<BrowserEntry, ObservableValue<String>> nameTransformation) {
+        this(list, nameTransformation, null);
+    }
+
     public static Image snapshot(ObservableList<BrowserEntry> list) {
         var r = new BrowserFileSelectionListComp(list).styleClass("drag").createRegion();
         var scene = new Scene(r);
@@ -68,6 +75,14 @@ public class BrowserFileSelectionListComp extends SimpleComp {
                                     });
                                 });
                                 BindingsHelper.preserve(l, t);
+                                if (onDoubleClick != null) {
+                                    l.setOnMouseClicked(event -> {
+                                        if (event.getClickCount() == 2) {
+                                            onDoubleClick.accept(entry);
+                                            event.consume();
+                                        }
+                                    });
+                                }
                                 return l;
                             });
                         },
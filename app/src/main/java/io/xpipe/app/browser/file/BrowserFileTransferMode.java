@@ -3,5 +3,6 @@ package io.xpipe.app.browser.file;
 public enum BrowserFileTransferMode {
     NORMAL,
     COPY,
-    MOVE
+    MOVE,
+    SYNC
 }
@@ -1,22 +1,51 @@
 package io.xpipe.app.browser.file;
 
+import io.xpipe.app.ext.ConnectionFileSystem;
+import io.xpipe.app.ext.ShellStore;
 import io.xpipe.app.issue.ErrorEvent;
+import io.xpipe.app.issue.TrackEvent;
+import io.xpipe.app.prefs.AppPrefs;
+import io.xpipe.app.util.CommandSupport;
 import io.xpipe.app.util.ThreadHelper;
+import io.xpipe.core.process.CommandBuilder;
+import io.xpipe.core.process.OsType;
+import io.xpipe.core.process.ShellControl;
 import io.xpipe.core.store.*;
+import io.xpipe.core.util.FailableSupplier;
 
 import javafx.beans.property.BooleanProperty;
+import javafx.beans.value.ChangeListener;
+
+import lombok.Getter;
+import lombok.Value;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 public class BrowserFileTransferOperation {
 
@@ -27,6 +56,13 @@ public class BrowserFileTransferOperation {
     private final Consumer<BrowserTransferProgress> progress;
     private final BooleanProperty cancelled;
 
+    private final Set<CompletableFuture<Void>> activeTransfers = ConcurrentHashMap.newKeySet();
+    private final ChangeListener<Boolean> cancelListener = (observable, oldValue, newValue) -> {
+        if (newValue) {
+            activeTransfers.forEach(future -> future.complete(null));
+        }
+    };
+
     BrowserAlerts.FileConflictChoice lastConflictChoice;
 
     public BrowserFileTransferOperation(
@@ -72,7 +108,8 @@ public class BrowserFileTransferOperation {
         this.progress.accept(progress);
     }
 
-    private BrowserAlerts.FileConflictChoice handleChoice(FileSystem fileSystem, FilePath target, boolean multiple)
+    private BrowserAlerts.FileConflictChoice handleChoice(
+            FileSystem fileSystem, FilePath target, boolean multiple, Map<FilePath, FileEntry> existing)
             throws Exception {
         if (lastConflictChoice == BrowserAlerts.FileConflictChoice.CANCEL) {
             return BrowserAlerts.FileConflictChoice.CANCEL;
@@ -86,7 +123,11 @@ public class BrowserFileTransferOperation {
             return BrowserAlerts.FileConflictChoice.RENAME;
         }
 
-        if (fileSystem.fileExists(target)) {
+        // Use the batched lookup results if available
+        var exists = existing != null
+                ? existing.containsKey(target) && existing.get(target).getKind() != FileKind.DIRECTORY
+                : fileSystem.fileExists(target);
+        if (exists) {
             if (lastConflictChoice == BrowserAlerts.FileConflictChoice.SKIP_ALL) {
                 return BrowserAlerts.FileConflictChoice.SKIP;
             }
@@ -132,6 +173,23 @@ public class BrowserFileTransferOperation {
         }
 
         cancelled.set(false);
+        cancelled.addListener(cancelListener);
+        try {
+            executeTransfers();
+        } finally {
+            cancelled.removeListener(cancelListener);
+        }
+    }
+
+    private void executeTransfers() throws Exception {
+        if (transferMode == BrowserFileTransferMode.SYNC) {
+            try {
+                handleSync();
+            } finally {
+                updateProgress(null);
+            }
+            return;
+        }
 
         var same = files.getFirst().getFileSystem().equals(target.getFileSystem());
         var doesMove = transferMode == BrowserFileTransferMode.MOVE
@@ -189,7 +247,7 @@ public class BrowserFileTransferOperation {
         }
 
         if (checkConflicts) {
-            var fileConflictChoice = handleChoice(target.getFileSystem(), targetFile, files.size() > 1);
+            var fileConflictChoice = handleChoice(target.getFileSystem(), targetFile, files.size() > 1, null);
             if (fileConflictChoice == BrowserAlerts.FileConflictChoice.SKIP
                     || fileConflictChoice == BrowserAlerts.FileConflictChoice.CANCEL) {
                 return;
@@ -210,10 +268,18 @@ public class BrowserFileTransferOperation {
 
     private FilePath renameFileLoop(FileSystem fileSystem, FilePath target, boolean dir) throws Exception {
         // Who has more than 10 copies?
+        var candidates = new ArrayList<FilePath>();
         for (int i = 0; i < 10; i++) {
             target = renameFile(target);
-            if ((dir && !fileSystem.directoryExists(target)) || (!dir && !fileSystem.fileExists(target))) {
-                return target;
+            candidates.add(target);
+        }
+
+        // Check all candidates at once instead of one after another
+        var existing = fileSystem.statFiles(candidates);
+        for (var candidate : candidates) {
+            var entry = existing.get(candidate);
+            if (entry == null || (dir != (entry.getKind() == FileKind.DIRECTORY))) {
+                return candidate;
             }
         }
         return target;
@@ -289,16 +355,35 @@ public class BrowserFileTransferOperation {
 
         var start = Instant.now();
         AtomicLong transferred = new AtomicLong();
+        if (source.getKind() == FileKind.DIRECTORY
+                && flatFiles.size() > ARCHIVE_TRANSFER_THRESHOLD
+                && canTransferAsArchive(source)) {
+            transferAsArchive(source, transferred, totalSize, start);
+            if (!cancelled()) {
+                updateProgress(BrowserTransferProgress.finished(source.getName(), totalSize.get()));
+            }
+            return;
+        }
+
+        // Look up all possible conflicts with one batched call
+        var existing = checkConflicts
+                ? target.getFileSystem()
+                        .statFiles(flatFiles.entrySet().stream()
+                                .filter(e -> e.getKey().getKind() == FileKind.FILE)
+                                .map(e -> getTargetFile(e.getValue()))
+                                .toList())
+                : Map.<FilePath, FileEntry>of();
+
+        // Without parallel transfers, every file is transferred right after its conflict check
+        var sequential = getParallelism(source) <= 1;
+        var jobs = new ArrayList<TransferJob>();
         for (var e : flatFiles.entrySet()) {
             if (cancelled()) {
                 return;
             }
 
             var sourceFile = e.getKey();
-            var fixedRelPath = FilePath.of(e.getValue())
-                    .fileSystemCompatible(
-                            target.getFileSystem().getShell().orElseThrow().getOsType());
-            var targetFile = target.getPath().join(fixedRelPath.toString());
+            var targetFile = getTargetFile(e.getValue());
             if (sourceFile.getFileSystem().equals(target.getFileSystem())) {
                 throw new IllegalStateException();
             }
@@ -307,8 +392,8 @@ public class BrowserFileTransferOperation {
                 target.getFileSystem().mkdirs(targetFile);
             } else if (sourceFile.getKind() == FileKind.FILE) {
                 if (checkConflicts) {
-                    var fileConflictChoice =
-                            handleChoice(target.getFileSystem(), targetFile, files.size() > 1 || flatFiles.size() > 1);
+                    var fileConflictChoice = handleChoice(
+                            target.getFileSystem(), targetFile, files.size() > 1 || flatFiles.size() > 1, existing);
                     if (fileConflictChoice == BrowserAlerts.FileConflictChoice.SKIP
                             || fileConflictChoice == BrowserAlerts.FileConflictChoice.CANCEL) {
                         continue;
@@ -319,27 +404,608 @@ public class BrowserFileTransferOperation {
                     }
                 }
 
-                transfer(sourceFile, targetFile, transferred, totalSize, start);
+                if (sequential) {
+                    transfer(
+                            source.getFileSystem(),
+                            sourceFile,
+                            target.getFileSystem(),
+                            targetFile,
+                            transferred,
+                            totalSize,
+                            start);
+                } else {
+                    jobs.add(new TransferJob(sourceFile, targetFile));
+                }
             }
         }
+
+        if (!sequential) {
+            transferJobs(source, jobs, transferred, totalSize, start);
+        }
+        if (cancelled()) {
+            return;
+        }
+
         updateProgress(BrowserTransferProgress.finished(source.getName(), totalSize.get()));
     }
 
+    private FilePath getTargetFile(String relativePath) {
+        var fixedRelPath = FilePath.of(relativePath)
+                .fileSystemCompatible(target.getFileSystem().getShell().orElseThrow().getOsType());
+        return target.getPath().join(fixedRelPath.toString());
+    }
+
+    private void transferJobs(
+            FileEntry source, List<TransferJob> jobs, AtomicLong transferred, AtomicLong totalSize, Instant start)
+            throws Exception {
+        var parallelism = Math.min(getParallelism(source), jobs.size());
+        if (parallelism > 1) {
+            transferParallel(source, jobs, parallelism, transferred, totalSize, start);
+            return;
+        }
+
+        for (var job : jobs) {
+            if (cancelled()) {
+                return;
+            }
+
+            transfer(
+                    source.getFileSystem(),
+                    job.getSource(),
+                    target.getFileSystem(),
+                    job.getTarget(),
+                    transferred,
+                    totalSize,
+                    start);
+        }
+    }
+
+    private void handleSync() throws Exception {
+        if (target.getKind() != FileKind.DIRECTORY) {
+            throw new IllegalStateException("Target " + target.getPath() + " is not a directory");
+        }
+
+        Map<String, FileEntry> existing;
+        try (var stream = target.getFileSystem().listFiles(target.getPath())) {
+            existing = stream.collect(Collectors.toMap(
+                    entry -> entry.getPath().getFileName(), entry -> entry, (e1, e2) -> e1, LinkedHashMap::new));
+        }
+
+        var directories = new ArrayList<FilePath>();
+        var jobs = new ArrayList<TransferJob>();
+        var unchanged = new AtomicInteger();
+        for (var file : files) {
+            if (cancelled()) {
+                return;
+            }
+
+            // Prevent syncing directory into itself
+            if (file.getFileSystem().equals(target.getFileSystem())
+                    && target.getPath().startsWith(file.getPath())) {
+                continue;
+            }
+
+            var targetFile = target.getPath().join(toTargetCompatible(file.getPath().getFileName()));
+            var existingTarget = existing.get(targetFile.getFileName());
+            if (file.getKind() == FileKind.FILE) {
+                if (isUpToDate(file, existingTarget)) {
+                    unchanged.incrementAndGet();
+                } else {
+                    jobs.add(new TransferJob(file, targetFile));
+                }
+            } else if (file.getKind() == FileKind.DIRECTORY) {
+                planDirectorySync(file, targetFile, existingTarget, directories, jobs, unchanged);
+            }
+        }
+
+        if (cancelled() || (directories.isEmpty() && jobs.isEmpty())) {
+            return;
+        }
+
+        // Present the plan as a dry run before changing anything
+        var totalSize = new AtomicLong(jobs.stream()
+                .mapToLong(job -> job.getSource().getFileSizeLong().orElse(0))
+                .sum());
+        if (!BrowserAlerts.showSyncAlert(
+                jobs.stream().map(job -> job.getTarget()).toList(), unchanged.get(), totalSize.get(), target)) {
+            return;
+        }
+
+        for (var directory : directories) {
+            if (cancelled()) {
+                return;
+            }
+
+            target.getFileSystem().mkdirs(directory);
+        }
+
+        var source = files.getFirst();
+        if (source.getFileSystem().equals(target.getFileSystem())) {
+            for (var job : jobs) {
+                if (cancelled()) {
+                    return;
+                }
+
+                target.getFileSystem().copy(job.getSource().getPath(), job.getTarget());
+            }
+            return;
+        }
+
+        var start = Instant.now();
+        var transferred = new AtomicLong();
+        transferJobs(source, jobs, transferred, totalSize, start);
+        if (cancelled()) {
+            return;
+        }
+
+        updateProgress(BrowserTransferProgress.finished(source.getName(), totalSize.get()));
+    }
+
+    private void planDirectorySync(
+            FileEntry source,
+            FilePath targetDirectory,
+            FileEntry existingTarget,
+            List<FilePath> directories,
+            List<TransferJob> jobs,
+            AtomicInteger unchanged)
+            throws Exception {
+        var existing = new HashMap<String, FileEntry>();
+        if (existingTarget != null && existingTarget.getKind() == FileKind.DIRECTORY) {
+            for (var entry : target.getFileSystem().listFilesRecursively(targetDirectory)) {
+                var rel = entry.getPath().relativize(targetDirectory).toUnix().removeTrailingSlash();
+                existing.put(rel.toString(), entry);
+            }
+        } else {
+            directories.add(targetDirectory);
+        }
+
+        for (var entry : source.getFileSystem().listFilesRecursively(source.getPath())) {
+            if (cancelled()) {
+                return;
+            }
+
+            var rel = FilePath.of(toTargetCompatible(entry.getPath()
+                            .relativize(source.getPath())
+                            .toUnix()
+                            .removeTrailingSlash()
+                            .toString()))
+                    .toUnix();
+            var existingEntry = existing.get(rel.toString());
+            var targetFile = targetDirectory.join(rel.toString());
+            if (entry.getKind() == FileKind.DIRECTORY) {
+                if (existingEntry == null || existingEntry.getKind() != FileKind.DIRECTORY) {
+                    directories.add(targetFile);
+                }
+            } else if (entry.getKind() == FileKind.FILE) {
+                if (isUpToDate(entry, existingEntry)) {
+                    unchanged.incrementAndGet();
+                } else {
+                    jobs.add(new TransferJob(entry, targetFile));
+                }
+            }
+        }
+    }
+
+    private String toTargetCompatible(String path) {
+        return FilePath.of(path)
+                .fileSystemCompatible(target.getFileSystem().getShell().orElseThrow().getOsType())
+                .toString();
+    }
+
+    // Files are only compared by size and modification date, there are no checksums or block-level deltas
+    // Any file that is considered changed is transferred completely
+    private boolean isUpToDate(FileEntry source, FileEntry existing) {
+        if (existing == null || existing.getKind() != FileKind.FILE) {
+            return false;
+        }
+
+        var sourceSize = source.getFileSizeLong();
+        var existingSize = existing.getFileSizeLong();
+        if (sourceSize.isEmpty() || existingSize.isEmpty() || sourceSize.getAsLong() != existingSize.getAsLong()) {
+            return false;
+        }
+
+        // A transferred file receives a new modification date, so it is always newer than its source
+        if (source.getDate() == null || existing.getDate() == null) {
+            return false;
+        }
+
+        return !source.getDate().isAfter(existing.getDate());
+    }
+
+    private boolean canTransferAsArchive(FileEntry source) throws Exception {
+        var sourceShell = source.getFileSystem().getShell().orElseThrow();
+        var targetShell = target.getFileSystem().getShell().orElseThrow();
+        // File names might not be compatible across different operating systems
+        if (!sourceShell.getOsType().equals(targetShell.getOsType())) {
+            return false;
+        }
+
+        // Extracting into an existing directory would silently bypass any conflict checks
+        var targetDirectory = target.getPath().join(source.getPath().getFileName());
+        if (target.getFileSystem().directoryExists(targetDirectory)) {
+            return false;
+        }
+
+        // The archive is counted with wc on the source and cut off with head on the target,
+        // neither of which is available in cmd or PowerShell
+        if (sourceShell.getOsType() == OsType.WINDOWS) {
+            return false;
+        }
+
+        return CommandSupport.isInPath(sourceShell, "tar")
+                && CommandSupport.isInPath(sourceShell, "wc")
+                && CommandSupport.isInPath(targetShell, "tar")
+                && CommandSupport.isInPath(targetShell, "head");
+    }
+
+    private void transferAsArchive(FileEntry source, AtomicLong transferred, AtomicLong totalSize, Instant start)
+            throws Exception {
+        var sourceFs = source.getFileSystem();
+        var targetFs = target.getFileSystem();
+        var sourceShell = sourceFs.getShell().orElseThrow();
+        var targetShell = targetFs.getShell().orElseThrow();
+        var createArchive = CommandBuilder.of()
+                .add("tar", "-C")
+                .addFile(source.getPath().getParent())
+                .add("-cf", "-")
+                .addFile(source.getPath().getFileName());
+
+        // The target extraction has to know the amount of bytes in advance as the session stdin is not closed
+        // This reads the source tree twice, but is much cheaper than writing the archive to disk on the source
+        var archiveSize = Long.parseLong(sourceShell
+                .command(CommandBuilder.of().add(createArchive).add("|", "wc", "-c"))
+                .readStdoutOrThrow()
+                .strip());
+        if (cancelled()) {
+            return;
+        }
+
+        // The archive headers are included in the amount of bytes that actually has to be transferred
+        totalSize.set(archiveSize);
+
+        // The archive is extracted while it is being received, so nothing is staged on the target
+        // The shell session stdin is shared with later commands, so the extraction only consumes the archive bytes
+        var extractArchive = CommandBuilder.of()
+                .add("head", "-c", String.valueOf(archiveSize))
+                .add("|", "tar", "-C")
+                .addFile(target.getPath())
+                .add("-xf", "-");
+        var archiveEntry = new FileEntry(
+                sourceFs, source.getPath(), Instant.now(), "" + archiveSize, null, FileKind.FILE);
+        var archiveInput = new AtomicReference<ArchiveInputStream>();
+        transferStream(
+                sourceFs,
+                archiveEntry,
+                () -> {
+                    archiveInput.set(new ArchiveInputStream(
+                            sourceShell.command(createArchive).startExternalStdout(), archiveSize));
+                    return archiveInput.get();
+                },
+                targetFs,
+                () -> {
+                    var cmd = targetShell.command(extractArchive);
+                    cmd.setExitTimeout(Duration.ofMillis(Long.MAX_VALUE));
+                    return cmd.startExternalStdin();
+                },
+                archiveSize,
+                null,
+                transferred,
+                totalSize,
+                start);
+        if (cancelled()) {
+            return;
+        }
+
+        if (archiveInput.get() != null && archiveInput.get().isExceeded()) {
+            throw ErrorEvent.expected(
+                    new IOException("Directory " + source.getPath() + " has been modified during the transfer"));
+        }
+    }
+
+    private int getParallelism(FileEntry source) {
+        var pref = AppPrefs.get().fileTransferParallelism().getValue();
+        if (pref == null || pref <= 1) {
+            return 1;
+        }
+
+        // We can only open additional independent connections for file systems backed by a store
+        // Sub shells of the existing connection would just share the same underlying streams
+        var sourceStore = source.getFileSystem().getShell().flatMap(ShellControl::getSourceStore);
+        var targetStore = target.getFileSystem().getShell().flatMap(ShellControl::getSourceStore);
+        if (!(sourceStore.orElse(null) instanceof ShellStore) || !(targetStore.orElse(null) instanceof ShellStore)) {
+            return 1;
+        }
+
+        return Math.min(pref, MAX_PARALLELISM);
+    }
+
+    private void transferParallel(
+            FileEntry source,
+            List<TransferJob> jobs,
+            int parallelism,
+            AtomicLong transferred,
+            AtomicLong totalSize,
+            Instant start)
+            throws Exception {
+        var sourceStore = (ShellStore)
+                source.getFileSystem().getShell().orElseThrow().getSourceStore().orElseThrow();
+        var targetStore = (ShellStore)
+                target.getFileSystem().getShell().orElseThrow().getSourceStore().orElseThrow();
+        // Cancellation applies to the whole operation, there is no way to cancel a single queued or running file
+        var queue = new ConcurrentLinkedQueue<>(jobs);
+        var exception = new AtomicReference<Exception>();
+        var workers = new ArrayList<Thread>();
+        for (int i = 0; i < parallelism; i++) {
+            // The first worker reuses the existing file systems, so we only need to open the additional ones
+            var first = i == 0;
+            var worker = ThreadHelper.createPlatformThread("transfer worker " + i, true, () -> {
+                ConnectionFileSystem additionalSourceFs = null;
+                ConnectionFileSystem additionalTargetFs = null;
+                try {
+                    if (!first) {
+                        additionalSourceFs = new ConnectionFileSystem(sourceStore.standaloneControl());
+                        additionalSourceFs.open();
+                        additionalTargetFs = new ConnectionFileSystem(targetStore.standaloneControl());
+                        additionalTargetFs.open();
+                    }
+
+                    var sourceFs = first ? source.getFileSystem() : additionalSourceFs;
+                    var targetFs = first ? target.getFileSystem() : additionalTargetFs;
+                    TransferJob job;
+                    while (!cancelled() && exception.get() == null && (job = queue.poll()) != null) {
+                        transfer(sourceFs, job.getSource(), targetFs, job.getTarget(), transferred, totalSize, start);
+                    }
+                } catch (Exception ex) {
+                    exception.compareAndSet(null, ex);
+                } finally {
+                    if (additionalSourceFs != null) {
+                        additionalSourceFs.close();
+                    }
+                    if (additionalTargetFs != null) {
+                        additionalTargetFs.close();
+                    }
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+
+        for (var worker : workers) {
+            worker.join();
+        }
+
+        var ex = exception.get();
+        if (ex != null) {
+            throw ex;
+        }
+    }
+
     private void transfer(
-            FileEntry sourceFile, FilePath targetFile, AtomicLong transferred, AtomicLong totalSize, Instant start)
+            FileSystem sourceFs,
+            FileEntry sourceFile,
+            FileSystem targetFs,
+            FilePath targetFile,
+            AtomicLong transferred,
+            AtomicLong totalSize,
+            Instant start)
             throws Exception {
         if (cancelled()) {
             return;
         }
 
+        long fileSize;
+        try {
+            fileSize = sourceFs.getFileSize(sourceFile.getPath());
+        } catch (Exception ex) {
+            // Mark progress as finished to reset any progress display
+            updateProgress(BrowserTransferProgress.finished(sourceFile.getName(), transferred.get()));
+            throw ex;
+        }
+
+        if (isLocal(sourceFs) && isLocal(targetFs)) {
+            try {
+                transferLocal(sourceFs, sourceFile, targetFs, targetFile, fileSize, transferred, totalSize, start);
+                return;
+            } catch (AccessDeniedException ex) {
+                // The file system shell might run with different permissions than we do, e.g. if it is elevated
+                // In that case, fall back to the shell streams
+                ErrorEvent.fromThrowable(ex).omit().expected().handle();
+            }
+        }
+
+        if (fileSize >= RESUMABLE_TRANSFER_THRESHOLD) {
+            transferResumable(sourceFs, sourceFile, targetFs, targetFile, fileSize, transferred, totalSize, start);
+            return;
+        }
+
+        transferStream(
+                sourceFs,
+                sourceFile,
+                () -> sourceFs.openInput(sourceFile.getPath()),
+                targetFs,
+                () -> targetFs.openOutput(targetFile, fileSize),
+                fileSize,
+                null,
+                transferred,
+                totalSize,
+                start);
+    }
+
+    private boolean isLocal(FileSystem fs) {
+        return fs.getShell().map(ShellControl::isLocal).orElse(false);
+    }
+
+    private void transferLocal(
+            FileSystem sourceFs,
+            FileEntry sourceFile,
+            FileSystem targetFs,
+            FilePath targetFile,
+            long fileSize,
+            AtomicLong transferred,
+            AtomicLong totalSize,
+            Instant start)
+            throws Exception {
+        // Initialize progress immediately prior to reading anything
+        updateProgress(new BrowserTransferProgress(sourceFile.getName(), transferred.get(), totalSize.get(), start));
+
+        // FileChannel.transferTo lets the kernel copy the data directly, e.g. via copy_file_range, without ever
+        // passing the bytes through the heap
+        var position = 0L;
+        try (var in = FileChannel.open(sourceFile.getPath().asLocalPath(), StandardOpenOption.READ);
+                var out = FileChannel.open(
+                        targetFile.asLocalPath(),
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (position < fileSize) {
+                if (cancelled()) {
+                    return;
+                }
+
+                // Smaller chunks are required to keep a configured bandwidth limit smooth
+                var chunkSize =
+                        Math.min(LOCAL_TRANSFER_CHUNK_SIZE, BrowserTransferBandwidthLimiter.getMaximumChunkSize());
+                var count = in.transferTo(position, Math.min(chunkSize, fileSize - position), out);
+                if (count <= 0) {
+                    break;
+                }
+
+                BrowserTransferBandwidthLimiter.acquire(sourceFs, targetFs, (int) count);
+
+                position += count;
+                transferred.addAndGet(count);
+                updateProgress(new BrowserTransferProgress(
+                        sourceFile.getName(), transferred.get(), totalSize.get(), start));
+            }
+        }
+
+        if (position < fileSize) {
+            throw new IOException("Source file " + sourceFile.getPath() + " input did end prematurely");
+        }
+    }
+
+    private void transferResumable(
+            FileSystem sourceFs,
+            FileEntry sourceFile,
+            FileSystem targetFs,
+            FilePath targetFile,
+            long fileSize,
+            AtomicLong transferred,
+            AtomicLong totalSize,
+            Instant start)
+            throws Exception {
+        var sourceShell = sourceFs.getShell().orElseThrow();
+        var targetShell = targetFs.getShell().orElseThrow();
+        // Large files are first written to a separate part file, which is kept if the transfer is interrupted
+        var partFile = FilePath.of(targetFile + PART_FILE_SUFFIX);
+        var offset = 0L;
+        if (targetFs.fileExists(partFile)) {
+            // A part file can only be trusted if the complete result can be verified afterward
+            var partSize = targetFs.getFileSize(partFile);
+            if (partSize < fileSize
+                    && BrowserFileChecksum.canResume(sourceShell, targetShell)
+                    && BrowserFileChecksum.canComputeSha256(sourceShell)
+                    && BrowserFileChecksum.canComputeSha256(targetShell)) {
+                offset = partSize;
+            } else {
+                targetFs.delete(partFile);
+            }
+        }
+
+        String expectedChecksum;
+        if (offset > 0) {
+            var resumeOffset = offset;
+            var remaining = fileSize - offset;
+            var resumeFile = FilePath.of(targetFile + RESUME_FILE_SUFFIX);
+            transferred.addAndGet(offset);
+            transferStream(
+                    sourceFs,
+                    sourceFile,
+                    () -> BrowserFileChecksum.openInputAt(sourceShell, sourceFile.getPath(), resumeOffset),
+                    targetFs,
+                    () -> targetFs.openOutput(resumeFile, remaining),
+                    remaining,
+                    null,
+                    transferred,
+                    totalSize,
+                    start);
+            if (cancelled()) {
+                return;
+            }
+
+            BrowserFileChecksum.append(targetShell, resumeFile, partFile);
+            // We did not see the start of the file, so we have to let the source compute the checksum
+            expectedChecksum =
+                    BrowserFileChecksum.computeSha256(sourceShell, sourceFile.getPath()).orElse(null);
+        } else {
+            var digest = MessageDigest.getInstance("SHA-256");
+            transferStream(
+                    sourceFs,
+                    sourceFile,
+                    () -> sourceFs.openInput(sourceFile.getPath()),
+                    targetFs,
+                    () -> targetFs.openOutput(partFile, fileSize),
+                    fileSize,
+                    digest,
+                    transferred,
+                    totalSize,
+                    start);
+            if (cancelled()) {
+                return;
+            }
+
+            expectedChecksum = HexFormat.of().formatHex(digest.digest());
+        }
+
+        var actualChecksum = BrowserFileChecksum.computeSha256(targetShell, partFile);
+        if (offset > 0 && (expectedChecksum == null || actualChecksum.isEmpty())) {
+            // The resumed part might stem from a different version of the source file
+            targetFs.delete(partFile);
+            throw ErrorEvent.expected(new IOException(
+                    "Unable to verify the checksum of resumed file " + targetFile + ", the transfer has to be restarted"));
+        }
+
+        if (actualChecksum.isEmpty()) {
+            // A fresh transfer is still complete, the target just has no way of computing a checksum
+            TrackEvent.withWarn("Unable to verify checksum of transferred file")
+                    .tag("file", targetFile.toString())
+                    .handle();
+        }
+
+        if (expectedChecksum != null
+                && actualChecksum.isPresent()
+                && !expectedChecksum.equalsIgnoreCase(actualChecksum.get())) {
+            targetFs.delete(partFile);
+            throw ErrorEvent.expected(new IOException("Checksum of transferred file " + targetFile
+                    + " does not match the source file: expected " + expectedChecksum + " but got "
+                    + actualChecksum.get()));
+        }
+
+        if (targetFs.fileExists(targetFile)) {
+            targetFs.delete(targetFile);
+        }
+        targetFs.move(partFile, targetFile);
+    }
+
+    private void transferStream(
+            FileSystem sourceFs,
+            FileEntry sourceFile,
+            FailableSupplier<InputStream> input,
+            FileSystem targetFs,
+            FailableSupplier<OutputStream> output,
+            long fileSize,
+            MessageDigest digest,
+            AtomicLong transferred,
+            AtomicLong totalSize,
+            Instant start)
+            throws Exception {
         InputStream inputStream = null;
         OutputStream outputStream = null;
         try {
-            var fileSize = sourceFile.getFileSystem().getFileSize(sourceFile.getPath());
-
             // Read the first few bytes to figure out possible command failure early
             // before creating the output stream
-            inputStream = new BufferedInputStream(sourceFile.getFileSystem().openInput(sourceFile.getPath()), 1024);
+            inputStream = new BufferedInputStream(input.get(), 1024);
             inputStream.mark(1024);
             var streamStart = new byte[1024];
             var streamStartLength = inputStream.read(streamStart, 0, 1024);
@@ -350,8 +1016,20 @@ public class BrowserFileTransferOperation {
                 inputStream.reset();
             }
 
-            outputStream = target.getFileSystem().openOutput(targetFile, fileSize);
-            transferFile(sourceFile, inputStream, outputStream, transferred, totalSize, start, fileSize);
+            outputStream = output.get();
+            if (digest != null) {
+                outputStream = new DigestOutputStream(outputStream, digest);
+            }
+            transferFile(
+                    sourceFs,
+                    sourceFile,
+                    targetFs,
+                    inputStream,
+                    outputStream,
+                    transferred,
+                    totalSize,
+                    start,
+                    fileSize);
             outputStream.flush();
             inputStream.transferTo(OutputStream.nullOutputStream());
         } catch (Exception ex) {
@@ -403,10 +1081,21 @@ public class BrowserFileTransferOperation {
         source.getFileSystem().delete(source.getPath());
     }
 
-    private static final int DEFAULT_BUFFER_SIZE = 1024;
+    private static final int MIN_BUFFER_SIZE = 8 * 1024;
+    private static final int MAX_BUFFER_SIZE = 4 * 1024 * 1024;
+    private static final long BUFFER_GROWTH_THRESHOLD_NANOS = 10_000_000;
+    private static final long PROGRESS_UPDATE_INTERVAL_NANOS = 100_000_000;
+    private static final int MAX_PARALLELISM = 16;
+    private static final int ARCHIVE_TRANSFER_THRESHOLD = 32;
+    private static final long RESUMABLE_TRANSFER_THRESHOLD = 64L * 1024 * 1024;
+    private static final String PART_FILE_SUFFIX = ".xpipe-part";
+    private static final String RESUME_FILE_SUFFIX = ".xpipe-resume";
+    private static final long LOCAL_TRANSFER_CHUNK_SIZE = 8L * 1024 * 1024;
 
     private void transferFile(
+            FileSystem sourceFs,
             FileEntry sourceFile,
+            FileSystem targetFs,
             InputStream inputStream,
             OutputStream outputStream,
             AtomicLong transferred,
@@ -419,19 +1108,22 @@ public class BrowserFileTransferOperation {
 
         var killStreams = new AtomicBoolean(false);
         var exception = new AtomicReference<Exception>();
+        var completion = new CompletableFuture<Void>();
         var thread = ThreadHelper.createPlatformThread("transfer", true, () -> {
             try {
                 long readCount = 0;
-                var bs = (int) Math.min(DEFAULT_BUFFER_SIZE, expectedFileSize);
+                var bs = (int) Math.min(MIN_BUFFER_SIZE, expectedFileSize);
                 byte[] buffer = new byte[bs];
+                var lastRead = System.nanoTime();
+                var lastProgressUpdate = 0L;
                 int read;
-                while ((read = inputStream.read(buffer, 0, bs)) > 0) {
+                while ((read = inputStream.read(buffer, 0, buffer.length)) > 0) {
                     if (cancelled()) {
                         killStreams.set(true);
                         break;
                     }
 
-                    if (!checkTransferValidity()) {
+                    if (!checkTransferValidity(sourceFs, targetFs)) {
                         killStreams.set(true);
                         break;
                     }
@@ -439,54 +1131,73 @@ public class BrowserFileTransferOperation {
                     outputStream.write(buffer, 0, read);
                     transferred.addAndGet(read);
                     readCount += read;
-                    updateProgress(
-                            new BrowserTransferProgress(sourceFile.getName(), transferred.get(), total.get(), start));
+                    BrowserTransferBandwidthLimiter.acquire(sourceFs, targetFs, read);
+
+                    var now = System.nanoTime();
+                    // If the buffer is filled up quickly, the per-chunk overhead dominates,
+                    // so we can move more data at once
+                    if (read == buffer.length
+                            && buffer.length < MAX_BUFFER_SIZE
+                            && buffer.length * 2 <= BrowserTransferBandwidthLimiter.getMaximumChunkSize()
+                            && expectedFileSize - readCount > buffer.length
+                            && now - lastRead < BUFFER_GROWTH_THRESHOLD_NANOS) {
+                        buffer = new byte[Math.min(buffer.length * 2, MAX_BUFFER_SIZE)];
+                    }
+                    lastRead = now;
+
+                    if (now - lastProgressUpdate >= PROGRESS_UPDATE_INTERVAL_NANOS) {
+                        lastProgressUpdate = now;
+                        updateProgress(new BrowserTransferProgress(
+                                sourceFile.getName(), transferred.get(), total.get(), start));
+                    }
                 }
 
                 var incomplete = readCount < expectedFileSize;
                 if (incomplete) {
                     throw new IOException("Source file " + sourceFile.getPath() + " input did end prematurely");
                 }
+
+                updateProgress(
+                        new BrowserTransferProgress(sourceFile.getName(), transferred.get(), total.get(), start));
             } catch (Exception ex) {
                 exception.set(ex);
                 killStreams.set(true);
+            } finally {
+                completion.complete(null);
             }
         });
 
-        thread.start();
-        while (true) {
-            var alive = thread.isAlive();
-            var cancelled = cancelled();
-
-            if (cancelled) {
-                // Assume that the transfer has stalled if it doesn't finish until then
-                thread.join(1000);
-                killStreams();
-                break;
+        activeTransfers.add(completion);
+        try {
+            thread.start();
+            // The cancellation might have happened before we registered the transfer
+            if (cancelled()) {
+                completion.complete(null);
             }
+            completion.get();
+        } finally {
+            activeTransfers.remove(completion);
+        }
 
-            if (alive) {
-                Thread.sleep(100);
-                continue;
-            }
+        if (cancelled()) {
+            // Assume that the transfer has stalled if it doesn't finish until then
+            thread.join(1000);
+            killStreams(sourceFs, targetFs);
+            return;
+        }
 
-            if (killStreams.get()) {
-                killStreams();
-            }
+        if (killStreams.get()) {
+            killStreams(sourceFs, targetFs);
+        }
 
-            var ex = exception.get();
-            if (ex != null) {
-                throw ex;
-            } else {
-                break;
-            }
+        var ex = exception.get();
+        if (ex != null) {
+            throw ex;
         }
     }
 
-    private boolean checkTransferValidity() {
-        var sourceFs = files.getFirst().getFileSystem();
-        var targetFs = target.getFileSystem();
-        var same = files.getFirst().getFileSystem().equals(target.getFileSystem());
+    private boolean checkTransferValidity(FileSystem sourceFs, FileSystem targetFs) {
+        var same = sourceFs.equals(targetFs);
         if (!same) {
             var sourceShell = sourceFs.getShell().orElseThrow();
             var targetShell = targetFs.getShell().orElseThrow();
@@ -498,10 +1209,8 @@ public class BrowserFileTransferOperation {
         }
     }
 
-    private void killStreams() throws Exception {
-        var sourceFs = files.getFirst().getFileSystem();
-        var targetFs = target.getFileSystem();
-        var same = files.getFirst().getFileSystem().equals(target.getFileSystem());
+    private void killStreams(FileSystem sourceFs, FileSystem targetFs) throws Exception {
+        var same = sourceFs.equals(targetFs);
         if (!same) {
             var sourceShell = sourceFs.getShell().orElseThrow();
             var targetShell = targetFs.getShell().orElseThrow();
@@ -512,4 +1221,59 @@ public class BrowserFileTransferOperation {
             }
         }
     }
+
+    // Limits the archive stream to the previously determined size
+    // Any additional output is consumed on close, as the target only accepts the announced amount of bytes
+    private static class ArchiveInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        @Getter
+        private boolean exceeded;
+
+        private ArchiveInputStream(InputStream in, long size) {
+            super(in);
+            this.remaining = size;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+
+            var read = in.read();
+            if (read != -1) {
+                remaining--;
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+
+            var read = in.read(b, off, (int) Math.min(len, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (in.transferTo(OutputStream.nullOutputStream()) > 0) {
+                exceeded = true;
+            }
+            in.close();
+        }
+    }
+
+    @Value
+    private static class TransferJob {
+        FileEntry source;
+        FilePath target;
+    }
 }
@@ -0,0 +1,107 @@
+package io.xpipe.app.browser.file;
+
+import io.xpipe.app.prefs.AppPrefs;
+import io.xpipe.core.store.FileSystem;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+public class BrowserTransferBandwidthLimiter {
+
+    private static final BrowserTransferBandwidthLimiter GLOBAL = new BrowserTransferBandwidthLimiter();
+    private static final Map<UUID, BrowserTransferBandwidthLimiter> CONNECTIONS = new ConcurrentHashMap<>();
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final long IDLE_TIMEOUT_NANOS = 10 * NANOS_PER_SECOND;
+
+    private long available;
+    private long lastRefill = System.nanoTime();
+
+    public static void acquire(FileSystem source, FileSystem target, int bytes) throws InterruptedException {
+        if (!isEnabled()) {
+            return;
+        }
+
+        GLOBAL.consume(bytes, getRate(AppPrefs.get().fileTransferBandwidthLimit().getValue()));
+
+        var connectionRate = getRate(AppPrefs.get().fileTransferConnectionBandwidthLimit().getValue());
+        if (connectionRate <= 0) {
+            return;
+        }
+
+        for (var fs : new FileSystem[] {source, target}) {
+            var shell = fs.getShell();
+            // The local machine does not go over any connection
+            if (shell.isEmpty() || shell.get().isLocal()) {
+                continue;
+            }
+
+            var id = shell.get().getSourceStoreId();
+            if (id.isEmpty()) {
+                continue;
+            }
+
+            var limiter = CONNECTIONS.get(id.get());
+            if (limiter == null) {
+                // Buckets of connections that are no longer transferring anything can be dropped,
+                // otherwise the map would grow with every connection that was ever used for a transfer
+                CONNECTIONS.values().removeIf(BrowserTransferBandwidthLimiter::isIdle);
+                limiter = CONNECTIONS.computeIfAbsent(id.get(), uuid -> new BrowserTransferBandwidthLimiter());
+            }
+            limiter.consume(bytes, connectionRate);
+        }
+    }
+
+    private static boolean isEnabled() {
+        return AppPrefs.get() != null && AppPrefs.get().fileTransferBandwidthLimitEnabled.get();
+    }
+
+    public static int getMaximumChunkSize() {
+        if (!isEnabled()) {
+            return Integer.MAX_VALUE;
+        }
+
+        var rates = new long[] {
+            getRate(AppPrefs.get().fileTransferBandwidthLimit().getValue()),
+            getRate(AppPrefs.get().fileTransferConnectionBandwidthLimit().getValue())
+        };
+        var min = Integer.MAX_VALUE;
+        for (var rate : rates) {
+            // Keep chunks small enough to achieve a smooth rate with multiple updates per second
+            if (rate > 0) {
+                min = (int) Math.min(min, Math.max(rate / 10, 1024));
+            }
+        }
+        return min;
+    }
+
+    private static long getRate(Integer kibPerSecond) {
+        return kibPerSecond != null && kibPerSecond > 0 ? kibPerSecond * 1024L : 0;
+    }
+
+    private synchronized boolean isIdle() {
+        return System.nanoTime() - lastRefill > IDLE_TIMEOUT_NANOS;
+    }
+
+    private void consume(long bytes, long rate) throws InterruptedException {
+        if (rate <= 0) {
+            return;
+        }
+
+        long wait;
+        synchronized (this) {
+            var now = System.nanoTime();
+            // Allow bursts of at most one second worth of data
+            var elapsed = Math.min(now - lastRefill, NANOS_PER_SECOND);
+            available = Math.min(rate, available + (long) ((double) elapsed * rate / NANOS_PER_SECOND));
+            lastRefill = now;
+            available -= bytes;
+            wait = available < 0 ? -available * NANOS_PER_SECOND / rate : 0;
+        }
+
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+}
@@ -4,7 +4,9 @@ import io.xpipe.app.comp.Comp;
 import io.xpipe.app.comp.SimpleComp;
 import io.xpipe.app.comp.base.*;
 import io.xpipe.app.core.AppI18n;
+import io.xpipe.app.prefs.AppPrefs;
 import io.xpipe.app.util.DerivedObservableList;
+import io.xpipe.app.util.LabelGraphic;
 import io.xpipe.app.util.ThreadHelper;
 
 import javafx.beans.binding.Bindings;
@@ -77,8 +79,14 @@ public class BrowserTransferComp extends SimpleComp {
                                 },
                                 sourceItem.get().getProgress());
                     }
+                }, entry -> {
+                    model.getCurrentItems().stream()
+                            .filter(item -> item.getBrowserEntry() == entry)
+                            .findAny()
+                            .ifPresent(item -> model.prioritize(item));
                 })
-                .grow(false, true);
+                .grow(false, true)
+                .tooltipKey("prioritizeTransferDescription");
         var dragNotice = new LabelComp(AppI18n.observable("dragLocalFiles"))
                 .apply(struc -> struc.get().setGraphic(new FontIcon("mdi2h-hand-left")))
                 .apply(struc -> struc.get().setWrapText(true))
@@ -100,8 +108,27 @@ public class BrowserTransferComp extends SimpleComp {
                 .hide(Bindings.or(model.getEmpty(), model.getTransferring()))
                 .tooltipKey("downloadStageDescription");
 
-        var bottom = new HorizontalComp(
-                List.of(Comp.hspacer(), dragNotice, Comp.hspacer(), downloadButton, Comp.hspacer(4), clearButton));
+        var limiterEnabled = AppPrefs.get().fileTransferBandwidthLimitEnabled;
+        var limitButton = new IconButtonComp(
+                        Bindings.createObjectBinding(
+                                () -> new LabelGraphic.IconGraphic(
+                                        limiterEnabled.get() ? "mdi2s-speedometer-slow" : "mdi2s-speedometer"),
+                                limiterEnabled),
+                        () -> {
+                            limiterEnabled.set(!limiterEnabled.get());
+                        })
+                .hide(model.getEmpty())
+                .tooltipKey("limitBandwidthDescription");
+
+        var bottom = new HorizontalComp(List.of(
+                Comp.hspacer(),
+                dragNotice,
+                Comp.hspacer(),
+                limitButton,
+                Comp.hspacer(4),
+                downloadButton,
+                Comp.hspacer(4),
+                clearButton));
         var listBox = new VerticalComp(List.of(list, bottom))
                 .spacing(5)
                 .padding(new Insets(10, 10, 5, 10))
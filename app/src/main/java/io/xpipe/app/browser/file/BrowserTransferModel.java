@@ -10,8 +10,10 @@ import io.xpipe.app.util.ThreadHelper;
 import io.xpipe.core.process.OsType;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.Property;
 import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.value.ObservableBooleanValue;
 import javafx.collections.FXCollections;
@@ -26,8 +28,11 @@ import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Value
 public class BrowserTransferModel {
@@ -38,6 +43,7 @@ public class BrowserTransferModel {
     ObservableList<Item> items = FXCollections.observableArrayList();
     ObservableBooleanValue empty = Bindings.createBooleanBinding(() -> items.isEmpty(), items);
     BooleanProperty transferring = new SimpleBooleanProperty();
+    Set<Item> activeItems = new HashSet<>();
 
     public BrowserTransferModel(BrowserFullSessionModel browserSessionModel) {
         this.browserSessionModel = browserSessionModel;
@@ -45,12 +51,24 @@ public class BrowserTransferModel {
             while (true) {
                 Optional<Item> toDownload;
                 synchronized (items) {
-                    toDownload = items.stream()
-                            .filter(item -> !item.downloadFinished().get())
-                            .findFirst();
+                    toDownload = findNextDownload();
+                    toDownload.ifPresent(item -> {
+                        activeItems.add(item);
+                        transferring.setValue(true);
+                    });
                 }
                 if (toDownload.isPresent()) {
-                    downloadSingle(toDownload.get());
+                    var item = toDownload.get();
+                    ThreadHelper.runAsync(() -> {
+                        try {
+                            downloadSingle(item);
+                        } finally {
+                            synchronized (items) {
+                                activeItems.remove(item);
+                                transferring.setValue(!activeItems.isEmpty());
+                            }
+                        }
+                    });
                 } else {
                     ThreadHelper.sleep(20);
                 }
@@ -59,6 +77,36 @@ public class BrowserTransferModel {
         thread.start();
     }
 
+    private Optional<Item> findNextDownload() {
+        var max = AppPrefs.get().maxConcurrentFileTransfers().getValue();
+        var limit = max != null && max > 0 ? max : 1;
+        if (activeItems.size() >= limit) {
+            return Optional.empty();
+        }
+
+        // Downloads from the same file system would compete for the same shell
+        return items.stream()
+                .filter(item -> !item.downloadFinished().get())
+                .filter(item -> !activeItems.contains(item))
+                .filter(item -> activeItems.stream()
+                        .noneMatch(active -> active.getOpenFileSystemModel() == item.getOpenFileSystemModel()))
+                .max(Comparator.comparingInt(item -> item.getPriority().get()));
+    }
+
+    public void prioritize(Item item) {
+        synchronized (items) {
+            if (activeItems.contains(item) || item.downloadFinished().get()) {
+                return;
+            }
+
+            var max = items.stream()
+                    .mapToInt(i -> i.getPriority().get())
+                    .max()
+                    .orElse(0);
+            item.getPriority().set(max + 1);
+        }
+    }
+
     public List<Item> getCurrentItems() {
         synchronized (items) {
             return new ArrayList<>(items);
@@ -132,7 +180,6 @@ public class BrowserTransferModel {
         }
 
         try {
-            transferring.setValue(true);
             var op = new BrowserFileTransferOperation(
                     BrowserLocalFileSystem.getLocalFileEntry(TEMP),
                     List.of(item.getBrowserEntry().getRawFileEntry()),
@@ -157,8 +204,6 @@ public class BrowserTransferModel {
             synchronized (items) {
                 items.remove(item);
             }
-        } finally {
-            transferring.setValue(false);
         }
     }
 
@@ -219,6 +264,7 @@ public class BrowserTransferModel {
         BrowserEntry browserEntry;
         Path localFile;
         Property<BrowserTransferProgress> progress;
+        IntegerProperty priority;
 
         public Item(
                 BrowserFileSystemTabModel openFileSystemModel, String name, BrowserEntry browserEntry, Path localFile) {
@@ -227,6 +273,7 @@ public class BrowserTransferModel {
             this.browserEntry = browserEntry;
             this.localFile = localFile;
             this.progress = new SimpleObjectProperty<>();
+            this.priority = new SimpleIntegerProperty();
         }
 
         public ObservableBooleanValue downloadFinished() {
@@ -35,6 +35,7 @@ public class AppProperties {
 
     boolean staging;
     boolean useVirtualThreads;
+    boolean storageJournal;
     boolean debugThreads;
     Path dataDir;
     Path defaultDataDir;
@@ -108,6 +109,9 @@ public class AppProperties {
         useVirtualThreads = Optional.ofNullable(System.getProperty("io.xpipe.app.useVirtualThreads"))
                 .map(Boolean::parseBoolean)
                 .orElse(true);
+        storageJournal = Optional.ofNullable(System.getProperty("io.xpipe.app.storageJournal"))
+                .map(Boolean::parseBoolean)
+                .orElse(false);
         debugThreads = Optional.ofNullable(System.getProperty("io.xpipe.app.debugThreads"))
                 .map(Boolean::parseBoolean)
                 .orElse(false);
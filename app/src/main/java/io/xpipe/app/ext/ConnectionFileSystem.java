@@ -1,31 +1,60 @@
 package io.xpipe.app.ext;
 
 import io.xpipe.app.issue.ErrorEvent;
+import io.xpipe.app.prefs.AppPrefs;
 import io.xpipe.app.util.DocumentationLink;
+import io.xpipe.app.util.ShellControlCache;
 import io.xpipe.core.process.CommandBuilder;
+import io.xpipe.core.process.OsType;
 import io.xpipe.core.process.ShellControl;
-import io.xpipe.core.store.FileEntry;
-import io.xpipe.core.store.FilePath;
-import io.xpipe.core.store.FileSystem;
+import io.xpipe.core.process.ShellDialects;
+import io.xpipe.core.store.*;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
 
-import java.io.InputStream;
-import java.io.OutputStream;
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.util.List;
-import java.util.Optional;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
 @Getter
 public class ConnectionFileSystem implements FileSystem {
 
+    // Only text-heavy files compress well enough to make up for the remote compression cost
+    private static final Set<String> TEXT_EXTENSIONS = Set.of(
+            "txt", "log", "out", "csv", "tsv", "json", "jsonl", "ndjson", "xml", "html", "htm", "yaml", "yml",
+            "toml", "ini", "conf", "cfg", "properties", "sql", "md", "rst", "tex", "svg", "sh", "bash", "zsh",
+            "ps1", "py", "java", "js", "ts", "c", "h", "cpp", "go", "rs", "rb", "php", "css", "tf", "har", "dump");
+
+    private static final String FIND_FORMAT = "%y\\0%Y\\0%s\\0%T@\\0%M\\0%U\\0%u\\0%G\\0%g\\0%p\\0%l\\0";
+
+    // Windows file names can't contain control characters, so tabs are safe to use as separators
+    // The position of the link flag in Mode differs between PowerShell versions, so the attributes are checked instead
+    private static final String POWERSHELL_FORMAT = "\"$($_.Mode)`t$($_.PSIsContainer)`t$($_.Length)`t"
+            + "$([DateTimeOffset]::new($_.LastWriteTimeUtc).ToUnixTimeMilliseconds())`t"
+            + "$([bool]($_.Attributes -band [IO.FileAttributes]::ReparsePoint))`t"
+            + "$($_.FullName)`t$($_.Target)\"";
+
+    private static final int STAT_BATCH_SIZE = 256;
+
+    // Can't be confused with a file type printed by find or a powershell output line
+    private static final String FIND_ERROR_MARKER = "?error";
+
     @JsonIgnore
     protected final ShellControl shellControl;
 
+    @JsonIgnore
+    private final ShellControlCache cache;
+
     public ConnectionFileSystem(ShellControl shellControl) {
         this.shellControl = shellControl;
+        this.cache = new ShellControlCache(shellControl);
     }
 
     @Override
@@ -70,12 +99,47 @@ public class ConnectionFileSystem implements FileSystem {
 
     @Override
     public InputStream openInput(FilePath file) throws Exception {
+        if (shouldCompress(file)) {
+            var stream = shellControl
+                    .command(CommandBuilder.of().add("gzip", "-1", "-c").addFile(file))
+                    .startExternalStdout();
+            try {
+                return new GZIPInputStream(stream, 65536);
+            } catch (EOFException ex) {
+                // If there is no output at all, the command failed
+                // Closing the stream will report the actual error
+                stream.close();
+                throw ex;
+            }
+        }
+
         return shellControl
                 .getShellDialect()
                 .getFileReadCommand(shellControl, file.toString())
                 .startExternalStdout();
     }
 
+    private boolean shouldCompress(FilePath file) {
+        if (AppPrefs.get() == null || !AppPrefs.get().fileTransferCompression().get()) {
+            return false;
+        }
+
+        // There is no bandwidth to save for local files
+        if (shellControl.isLocal() || shellControl.getOsType() == OsType.WINDOWS) {
+            return false;
+        }
+
+        var ext = file.getExtension();
+        if (ext == null || !TEXT_EXTENSIONS.contains(ext.toLowerCase(Locale.ROOT))) {
+            return false;
+        }
+
+        // The cache is not thread-safe and the file system can be used by multiple transfers
+        synchronized (cache) {
+            return cache.isApplicationInPath("gzip");
+        }
+    }
+
     @Override
     public OutputStream openOutput(FilePath file, long totalBytes) throws Exception {
         var cmd =
@@ -175,6 +239,329 @@ public class ConnectionFileSystem implements FileSystem {
         return shellControl.getShellDialect().listFiles(this, shellControl, file.toString());
     }
 
+    @Override
+    public List<FileEntry> listFilesRecursively(FilePath file) throws Exception {
+        if (ShellDialects.isPowershell(shellControl)) {
+            return listFilesRecursivelyPowershell(file);
+        }
+
+        if (canUseFind()) {
+            return listFilesRecursivelyFind(file);
+        }
+
+        return FileSystem.super.listFilesRecursively(file);
+    }
+
+    private boolean canUseFind() throws Exception {
+        // The find commands use POSIX redirections and operators, which e.g. fish and csh do not all support
+        var dialect = shellControl.getShellDialect();
+        var posix = dialect == ShellDialects.SH
+                || dialect == ShellDialects.ASH
+                || dialect == ShellDialects.DASH
+                || dialect == ShellDialects.BASH
+                || dialect == ShellDialects.RBASH
+                || dialect == ShellDialects.ZSH;
+        return posix && shellControl.getOsType() != OsType.WINDOWS && hasGnuFind();
+    }
+
+    private boolean hasGnuFind() throws Exception {
+        // Only GNU find supports -printf, so check once per shell
+        synchronized (cache) {
+            cache.setIfAbsentFailable("gnuFind", () -> shellControl
+                    .command(CommandBuilder.of().add("find", "--version"))
+                    .readStdoutIfPossible()
+                    .map(s -> s.contains("GNU findutils"))
+                    .orElse(false));
+            return cache.get("gnuFind");
+        }
+    }
+
+    private List<FileEntry> listFilesRecursivelyFind(FilePath file) throws Exception {
+        var command = CommandBuilder.of()
+                .add("find")
+                .addFile(file)
+                .add("-mindepth", "1", "-printf")
+                .addQuoted(FIND_FORMAT);
+        var failed = new AtomicBoolean();
+        List<FileEntry> list;
+        try (var in = new BufferedInputStream(
+                shellControl.command(withFindErrorMarker(command)).startExternalStdout(), 65536)) {
+            list = readFindEntries(in, failed);
+        }
+        if (failed.get()) {
+            reportUnreadableDirectories(file);
+        }
+        return list;
+    }
+
+    private static CommandBuilder withFindErrorMarker(CommandBuilder findCommand) {
+        // This is only used for POSIX shells, see canUseFind()
+        // find fails for missing or inaccessible files, which would otherwise make the whole output unusable
+        // Instead, a marker record is appended so that the failure can still be detected
+        return findCommand.add("2>/dev/null", "||", "printf").addQuoted(FIND_ERROR_MARKER + "\\0");
+    }
+
+    private void reportUnreadableDirectories(FilePath file) {
+        // Unreadable directories are skipped for all dialects, the remaining listing is still usable
+        ErrorEvent.fromThrowable(
+                        new IOException("Some directories in " + file + " could not be read and were skipped"))
+                .expected()
+                .handle();
+    }
+
+    private List<FileEntry> readFindEntries(InputStream in, AtomicBoolean failed) throws Exception {
+        var list = new ArrayList<FileEntry>();
+        var buffer = new ByteArrayOutputStream();
+        while (true) {
+            var type = readField(in, buffer);
+            if (type == null) {
+                break;
+            }
+
+            if (type.equals(FIND_ERROR_MARKER)) {
+                failed.set(true);
+                continue;
+            }
+
+            var targetType = readField(in, buffer);
+            var size = readField(in, buffer);
+            var date = parseFindDate(readField(in, buffer));
+            var permissions = readField(in, buffer);
+            var uid = readField(in, buffer);
+            var user = readField(in, buffer);
+            var gid = readField(in, buffer);
+            var group = readField(in, buffer);
+            var path = readField(in, buffer);
+            var linkTarget = readField(in, buffer);
+            if (linkTarget == null) {
+                throw new IllegalStateException("Incomplete file listing output");
+            }
+
+            var info = new FileInfo.Unix(
+                    permissions.length() > 1 ? permissions.substring(1) : permissions,
+                    parseId(uid),
+                    user,
+                    parseId(gid),
+                    group);
+            var kind = toFileKind(type);
+            var filePath = FilePath.of(path);
+            if (kind == FileKind.LINK) {
+                var targetPath = FilePath.of(linkTarget);
+                if (!targetPath.isAbsolute() && filePath.getParent() != null) {
+                    targetPath = filePath.getParent().join(linkTarget);
+                }
+                var targetKind = toFileKind(targetType);
+                var target = new FileEntry(
+                        this,
+                        targetPath,
+                        date,
+                        targetKind == FileKind.FILE ? size : null,
+                        info,
+                        targetKind == FileKind.LINK ? FileKind.OTHER : targetKind);
+                list.add(new LinkFileEntry(this, filePath, date, size, info, target));
+            } else {
+                list.add(new FileEntry(this, filePath, date, kind == FileKind.FILE ? size : null, info, kind));
+            }
+        }
+        return list;
+    }
+
+    private List<FileEntry> listFilesRecursivelyPowershell(FilePath file) throws Exception {
+        var list = new ArrayList<FileEntry>();
+        var command = CommandBuilder.of()
+                .add("Get-ChildItem", "-LiteralPath")
+                .addFile(file)
+                .add(
+                        "-Recurse",
+                        "-Force",
+                        "-ErrorAction",
+                        "SilentlyContinue",
+                        "-ErrorVariable",
+                        "listErrors",
+                        "|",
+                        "ForEach-Object",
+                        "{",
+                        POWERSHELL_FORMAT,
+                        "};",
+                        "if",
+                        "($listErrors)",
+                        "{",
+                        "\"" + FIND_ERROR_MARKER + "\"",
+                        "}");
+        var failed = false;
+        try (var reader = new BufferedReader(new InputStreamReader(
+                shellControl.command(command).startExternalStdout(), shellControl.getCharset()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.equals(FIND_ERROR_MARKER)) {
+                    failed = true;
+                    continue;
+                }
+
+                var entry = parsePowershellEntry(line);
+                if (entry != null) {
+                    list.add(entry);
+                }
+            }
+        }
+        if (failed) {
+            reportUnreadableDirectories(file);
+        }
+        return list;
+    }
+
+    private FileEntry parsePowershellEntry(String line) {
+        var split = line.split("\t", -1);
+        if (split.length < 7) {
+            return null;
+        }
+
+        var mode = split[0];
+        var container = Boolean.parseBoolean(split[1]);
+        var size = split[2].isEmpty() ? null : split[2];
+        var date = Instant.ofEpochMilli(Long.parseLong(split[3]));
+        var info = new FileInfo.Windows(mode);
+        var reparsePoint = Boolean.parseBoolean(split[4]);
+        var filePath = FilePath.of(split[5]);
+        var kind = container ? FileKind.DIRECTORY : FileKind.FILE;
+        if (reparsePoint && !split[6].isEmpty()) {
+            var target = new FileEntry(this, FilePath.of(split[6]), date, size, info, kind);
+            return new LinkFileEntry(this, filePath, date, size, info, target);
+        } else {
+            return new FileEntry(this, filePath, date, container ? null : size, info, kind);
+        }
+    }
+
+    @Override
+    public Map<FilePath, FileEntry> statFiles(List<FilePath> files) throws Exception {
+        var map = new LinkedHashMap<FilePath, FileEntry>();
+        // Keep the command line length reasonable
+        for (int i = 0; i < files.size(); i += STAT_BATCH_SIZE) {
+            var batch = files.subList(i, Math.min(files.size(), i + STAT_BATCH_SIZE));
+            if (ShellDialects.isPowershell(shellControl)) {
+                statFilesPowershell(batch, map);
+            } else if (canUseFind()) {
+                statFilesFind(batch, map);
+            } else {
+                map.putAll(FileSystem.super.statFiles(batch));
+            }
+        }
+        return map;
+    }
+
+    private void statFilesFind(List<FilePath> batch, Map<FilePath, FileEntry> map) throws Exception {
+        var command = CommandBuilder.of().add("find");
+        for (var file : batch) {
+            command.addFile(file);
+        }
+        command.add("-maxdepth", "0", "-printf").addQuoted(FIND_FORMAT);
+
+        // Missing files make find fail, which is expected here
+        List<FileEntry> entries;
+        try (var in = new BufferedInputStream(
+                shellControl.command(withFindErrorMarker(command)).startExternalStdout(), 65536)) {
+            entries = readFindEntries(in, new AtomicBoolean());
+        }
+
+        // find prints start points as passed, which is only changed by the directory normalization of FileEntry
+        var byPath = new HashMap<String, FilePath>();
+        for (var file : batch) {
+            byPath.put(file.removeTrailingSlash().toString(), file);
+        }
+        for (var entry : entries) {
+            var file = byPath.get(entry.getPath().removeTrailingSlash().toString());
+            if (file != null) {
+                map.put(file, entry);
+            }
+        }
+    }
+
+    private void statFilesPowershell(List<FilePath> batch, Map<FilePath, FileEntry> map) throws Exception {
+        var command = CommandBuilder.of().add("@(");
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > 0) {
+                command.add(",");
+            }
+            command.addFile(batch.get(i));
+        }
+        // Print a placeholder line for missing files so that the output lines match the passed files
+        command.add(
+                ")",
+                "|",
+                "ForEach-Object",
+                "{",
+                "$i",
+                "=",
+                "Get-Item",
+                "-LiteralPath",
+                "$_",
+                "-Force",
+                "-ErrorAction",
+                "SilentlyContinue;",
+                "if",
+                "($i)",
+                "{",
+                "$i",
+                "|",
+                "ForEach-Object",
+                "{",
+                POWERSHELL_FORMAT,
+                "}",
+                "}",
+                "else",
+                "{",
+                "\"?\"",
+                "}",
+                "}");
+        var lines = shellControl.command(command).readStdoutOrThrow().lines().toList();
+        for (int i = 0; i < Math.min(lines.size(), batch.size()); i++) {
+            var entry = parsePowershellEntry(lines.get(i));
+            if (entry != null) {
+                map.put(batch.get(i), entry);
+            }
+        }
+    }
+
+    private static String readField(InputStream in, ByteArrayOutputStream buffer) throws Exception {
+        buffer.reset();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == 0) {
+                return buffer.toString(StandardCharsets.UTF_8);
+            }
+            buffer.write(b);
+        }
+        return null;
+    }
+
+    private static FileKind toFileKind(String findType) {
+        return switch (findType) {
+            case "d" -> FileKind.DIRECTORY;
+            case "f" -> FileKind.FILE;
+            case "l" -> FileKind.LINK;
+            default -> FileKind.OTHER;
+        };
+    }
+
+    private static Instant parseFindDate(String s) {
+        try {
+            var seconds = new BigDecimal(s);
+            return Instant.ofEpochSecond(
+                    seconds.longValue(),
+                    seconds.remainder(BigDecimal.ONE).movePointRight(9).longValue());
+        } catch (NumberFormatException | NullPointerException ex) {
+            return null;
+        }
+    }
+
+    private static Integer parseId(String s) {
+        try {
+            return Integer.parseInt(s);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
     @Override
     public List<FilePath> listRoots() throws Exception {
         return shellControl
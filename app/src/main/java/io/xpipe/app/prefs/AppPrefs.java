@@ -179,6 +179,18 @@ public class AppPrefs {
             new SimpleBooleanProperty(true), "openConnectionSearchWindowOnConnectionCreation", Boolean.class, false);
     final ObjectProperty<String> downloadsDirectory =
             mapLocal(new SimpleObjectProperty<>(), "downloadsDirectory", String.class, false);
+    final Property<Integer> fileTransferParallelism =
+            mapLocal(new SimpleObjectProperty<>(1), "fileTransferParallelism", Integer.class, false);
+    final BooleanProperty fileTransferCompression =
+            mapLocal(new SimpleBooleanProperty(false), "fileTransferCompression", Boolean.class, false);
+    final Property<Integer> fileTransferBandwidthLimit =
+            mapLocal(new SimpleObjectProperty<>(null), "fileTransferBandwidthLimit", Integer.class, false);
+    final Property<Integer> fileTransferConnectionBandwidthLimit =
+            mapLocal(new SimpleObjectProperty<>(null), "fileTransferConnectionBandwidthLimit", Integer.class, false);
+    public final BooleanProperty fileTransferBandwidthLimitEnabled =
+            mapLocal(new SimpleBooleanProperty(true), "fileTransferBandwidthLimitEnabled", Boolean.class, false);
+    final Property<Integer> maxConcurrentFileTransfers =
+            mapLocal(new SimpleObjectProperty<>(1), "maxConcurrentFileTransfers", Integer.class, false);
     final BooleanProperty developerMode =
             mapLocal(new SimpleBooleanProperty(false), "developerMode", Boolean.class, true);
     final BooleanProperty developerDisableUpdateVersionCheck =
@@ -497,6 +509,26 @@ public class AppPrefs {
         return downloadsDirectory;
     }
 
+    public ReadOnlyProperty<Integer> fileTransferParallelism() {
+        return fileTransferParallelism;
+    }
+
+    public ObservableBooleanValue fileTransferCompression() {
+        return fileTransferCompression;
+    }
+
+    public ReadOnlyProperty<Integer> fileTransferBandwidthLimit() {
+        return fileTransferBandwidthLimit;
+    }
+
+    public ReadOnlyProperty<Integer> fileTransferConnectionBandwidthLimit() {
+        return fileTransferConnectionBandwidthLimit;
+    }
+
+    public ReadOnlyProperty<Integer> maxConcurrentFileTransfers() {
+        return maxConcurrentFileTransfers;
+    }
+
     public ObservableValue<Boolean> developerMode() {
         return System.getProperty(DEVELOPER_MODE_PROP) != null
                 ? new SimpleBooleanProperty(Boolean.parseBoolean(System.getProperty(DEVELOPER_MODE_PROP)))
@@ -1,6 +1,7 @@
 package io.xpipe.app.prefs;
 
 import io.xpipe.app.comp.Comp;
+import io.xpipe.app.comp.base.IntFieldComp;
 import io.xpipe.app.comp.base.TextFieldComp;
 import io.xpipe.app.util.OptionsBuilder;
 
@@ -25,6 +26,24 @@ public class FileBrowserCategory extends AppPrefsCategory {
                         .addComp(
                                 new TextFieldComp(prefs.downloadsDirectory).maxWidth(getCompWidth()),
                                 prefs.downloadsDirectory)
+                        .pref(prefs.fileTransferParallelism)
+                        .addComp(
+                                new IntFieldComp(prefs.fileTransferParallelism).maxWidth(100),
+                                prefs.fileTransferParallelism)
+                        .pref(prefs.fileTransferCompression)
+                        .addToggle(prefs.fileTransferCompression)
+                        .pref(prefs.fileTransferBandwidthLimit)
+                        .addComp(
+                                new IntFieldComp(prefs.fileTransferBandwidthLimit).maxWidth(100),
+                                prefs.fileTransferBandwidthLimit)
+                        .pref(prefs.fileTransferConnectionBandwidthLimit)
+                        .addComp(
+                                new IntFieldComp(prefs.fileTransferConnectionBandwidthLimit).maxWidth(100),
+                                prefs.fileTransferConnectionBandwidthLimit)
+                        .pref(prefs.maxConcurrentFileTransfers)
+                        .addComp(
+                                new IntFieldComp(prefs.maxConcurrentFileTransfers).maxWidth(100),
+                                prefs.maxConcurrentFileTransfers)
                         .pref(prefs.pinLocalMachineOnStartup)
                         .addToggle(prefs.pinLocalMachineOnStartup))
                 .buildComp();
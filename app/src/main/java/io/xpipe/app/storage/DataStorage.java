@@ -63,6 +63,12 @@ public abstract class DataStorage {
 
     private final Map<DataStoreEntry, DataStoreEntry> storeEntriesInProgress = new ConcurrentHashMap<>();
 
+    // Lookup indexes, kept consistent with the entry and category collections
+    private final Map<UUID, DataStoreEntry> storeEntriesByUuid = new ConcurrentHashMap<>();
+    private final Map<UUID, DataStoreCategory> storeCategoriesByUuid = new ConcurrentHashMap<>();
+    private final Map<String, DataStoreEntry> storeEntriesByName = new ConcurrentHashMap<>();
+    private final Map<DataStore, DataStoreEntry> storeEntriesInProgressByStore = new IdentityHashMap<>();
+
     @Getter
     protected boolean loaded;
 
@@ -70,6 +76,10 @@ public abstract class DataStorage {
     @Setter
     protected DataStoreCategory selectedCategory;
 
+    // Maintained index from the display parent of an entry to its children
+    private final Map<DataStoreEntry, Set<DataStoreEntry>> childrenIndex = new HashMap<>();
+    private final Map<DataStoreEntry, DataStoreEntry> parentIndex = new HashMap<>();
+
     private final Map<DataStore, DataStoreEntry> identityStoreEntryMapCache = new IdentityHashMap<>();
     private final Map<DataStore, DataStoreEntry> storeEntryMapCache = new HashMap<>();
 
@@ -156,7 +166,7 @@ public abstract class DataStorage {
         if (allConnections.isEmpty()) {
             var cat = DataStoreCategory.createNew(null, ALL_CONNECTIONS_CATEGORY_UUID, "All connections");
             cat.setDirectory(categoriesDir.resolve(ALL_CONNECTIONS_CATEGORY_UUID.toString()));
-            storeCategories.add(cat);
+            putStoreCategory(cat);
         } else {
             allConnections.get().setParentCategory(null);
         }
@@ -165,7 +175,7 @@ public abstract class DataStorage {
         if (allScripts.isEmpty()) {
             var cat = DataStoreCategory.createNew(null, ALL_SCRIPTS_CATEGORY_UUID, "All scripts");
             cat.setDirectory(categoriesDir.resolve(ALL_SCRIPTS_CATEGORY_UUID.toString()));
-            storeCategories.add(cat);
+            putStoreCategory(cat);
         } else {
             allScripts.get().setParentCategory(null);
         }
@@ -174,20 +184,20 @@ public abstract class DataStorage {
             var cat =
                     DataStoreCategory.createNew(ALL_SCRIPTS_CATEGORY_UUID, PREDEFINED_SCRIPTS_CATEGORY_UUID, "Samples");
             cat.setDirectory(categoriesDir.resolve(PREDEFINED_SCRIPTS_CATEGORY_UUID.toString()));
-            storeCategories.add(cat);
+            putStoreCategory(cat);
         }
 
         if (getStoreCategoryIfPresent(CUSTOM_SCRIPTS_CATEGORY_UUID).isEmpty()) {
             var cat = DataStoreCategory.createNew(ALL_SCRIPTS_CATEGORY_UUID, CUSTOM_SCRIPTS_CATEGORY_UUID, "Custom");
             cat.setDirectory(categoriesDir.resolve(CUSTOM_SCRIPTS_CATEGORY_UUID.toString()));
-            storeCategories.add(cat);
+            putStoreCategory(cat);
         }
 
         var allIdentities = getStoreCategoryIfPresent(ALL_IDENTITIES_CATEGORY_UUID);
         if (allIdentities.isEmpty()) {
             var cat = DataStoreCategory.createNew(null, ALL_IDENTITIES_CATEGORY_UUID, "All identities");
             cat.setDirectory(categoriesDir.resolve(ALL_IDENTITIES_CATEGORY_UUID.toString()));
-            storeCategories.add(cat);
+            putStoreCategory(cat);
         } else {
             allIdentities.get().setParentCategory(null);
         }
@@ -197,7 +207,7 @@ public abstract class DataStorage {
             var cat =
                     DataStoreCategory.createNew(ALL_IDENTITIES_CATEGORY_UUID, LOCAL_IDENTITIES_CATEGORY_UUID, "Local");
             cat.setDirectory(categoriesDir.resolve(LOCAL_IDENTITIES_CATEGORY_UUID.toString()));
-            storeCategories.add(cat);
+            putStoreCategory(cat);
         } else {
             localIdentities.get().setParentCategory(ALL_IDENTITIES_CATEGORY_UUID);
         }
@@ -209,14 +219,14 @@ public abstract class DataStorage {
                         ALL_IDENTITIES_CATEGORY_UUID, SYNCED_IDENTITIES_CATEGORY_UUID, "Synced");
                 cat.setDirectory(categoriesDir.resolve(SYNCED_IDENTITIES_CATEGORY_UUID.toString()));
                 cat.setConfig(cat.getConfig().withSync(true));
-                storeCategories.add(cat);
+                putStoreCategory(cat);
             } else {
                 sharedIdentities.get().setParentCategory(ALL_IDENTITIES_CATEGORY_UUID);
             }
         }
 
         if (getStoreCategoryIfPresent(DEFAULT_CATEGORY_UUID).isEmpty()) {
-            storeCategories.add(new DataStoreCategory(
+            putStoreCategory(new DataStoreCategory(
                     categoriesDir.resolve(DEFAULT_CATEGORY_UUID.toString()),
                     DEFAULT_CATEGORY_UUID,
                     "Default",
@@ -269,6 +279,10 @@ public abstract class DataStorage {
 
     public abstract void save(boolean dispose);
 
+    public void markDirty(StorageElement element) {}
+
+    protected void markDeletion() {}
+
     public abstract boolean supportsSync();
 
     public boolean shouldSync(DataStoreCategory category) {
@@ -319,9 +333,36 @@ public abstract class DataStorage {
     }
 
     protected void refreshEntries() {
-        storeEntries.keySet().forEach(dataStoreEntry -> {
+        // Referenced entries are refreshed first, so a single pass is enough for chained stores
+        getEntriesInDependencyOrder().forEach(dataStoreEntry -> {
             dataStoreEntry.refreshStore();
         });
+        // Refreshed stores might now resolve references to their parents
+        rebuildParentIndex();
+    }
+
+    private List<DataStoreEntry> getEntriesInDependencyOrder() {
+        var ordered = new ArrayList<DataStoreEntry>(storeEntries.size());
+        var visited = new HashSet<DataStoreEntry>();
+        for (var entry : storeEntriesSet) {
+            visitDependencies(entry, visited, ordered);
+        }
+        return ordered;
+    }
+
+    private void visitDependencies(DataStoreEntry entry, Set<DataStoreEntry> visited, List<DataStoreEntry> ordered) {
+        // Marking as visited before descending also breaks reference cycles
+        if (!visited.add(entry)) {
+            return;
+        }
+
+        for (var id : entry.getReferencedStoreIds()) {
+            var dependency = storeEntriesByUuid.get(id);
+            if (dependency != null) {
+                visitDependencies(dependency, visited, ordered);
+            }
+        }
+        ordered.add(entry);
     }
 
     public void updateEntry(DataStoreEntry entry, DataStoreEntry newEntry) {
@@ -362,11 +403,7 @@ public abstract class DataStorage {
         entry.initializeEntry();
 
         if (!sameParent) {
-            if (oldParent.isPresent()) {
-                oldParent.get().setChildrenCache(null);
-            }
             if (newParent.isPresent()) {
-                newParent.get().setChildrenCache(null);
                 newParent.get().setExpanded(true);
             }
             var toAdd = Stream.concat(Stream.of(entry), children.stream()).toArray(DataStoreEntry[]::new);
@@ -450,6 +487,20 @@ public abstract class DataStorage {
         }
 
         var oldChildren = getStoreChildren(e);
+
+        // Match old and new children by their fixed ids with lookups instead of nested scans
+        var newById = new HashMap<Integer, DataStoreEntryRef<? extends FixedChildStore>>();
+        newChildren.forEach(nc -> {
+            var nid = getFixedChildId(nc.get());
+            if (nid.isPresent()) {
+                newById.putIfAbsent(nid.getAsInt(), nc);
+            }
+        });
+        var oldIds = new HashSet<Integer>();
+        oldChildren.forEach(oc -> {
+            getFixedChildId(oc).ifPresent(oldIds::add);
+        });
+
         var toRemove = oldChildren.stream()
                 .filter(oc -> {
                     var oid = getFixedChildId(oc);
@@ -457,11 +508,7 @@ public abstract class DataStorage {
                         return false;
                     }
 
-                    return newChildren.stream()
-                            .filter(nc -> getFixedChildId(nc.get()).isPresent())
-                            .noneMatch(nc -> {
-                                return getFixedChildId(nc.get()).getAsInt() == oid.getAsInt();
-                            });
+                    return !newById.containsKey(oid.getAsInt());
                 })
                 .toList();
         var toAdd = newChildren.stream()
@@ -472,12 +519,7 @@ public abstract class DataStorage {
                         return false;
                     }
 
-                    return oldChildren.stream()
-                            .filter(oc -> oc.getStore() instanceof FixedChildStore)
-                            .filter(oc -> getFixedChildId(oc).isPresent())
-                            .noneMatch(oc -> {
-                                return getFixedChildId(oc).getAsInt() == nid.getAsInt();
-                            });
+                    return !oldIds.contains(nid.getAsInt());
                 })
                 .toList();
         var toUpdate = new ArrayList<>(oldChildren.stream()
@@ -487,11 +529,7 @@ public abstract class DataStorage {
                         return new Pair<DataStoreEntry, DataStoreEntryRef<? extends FixedChildStore>>(oc, null);
                     }
 
-                    var found = newChildren.stream()
-                            .filter(nc -> getFixedChildId(nc.get()).isPresent())
-                            .filter(nc -> getFixedChildId(nc.get()).getAsInt() == oid.getAsInt())
-                            .findFirst()
-                            .orElse(null);
+                    var found = newById.get(oid.getAsInt());
                     return new Pair<DataStoreEntry, DataStoreEntryRef<? extends FixedChildStore>>(oc, found);
                 })
                 .filter(en -> en.getValue() != null)
@@ -634,25 +672,26 @@ public abstract class DataStorage {
 
         for (var td : toDelete) {
             td.finalizeEntry();
-            this.storeEntriesSet.remove(td);
+            removeStoreEntry(td);
             synchronized (identityStoreEntryMapCache) {
                 identityStoreEntryMapCache.remove(td.getStore());
             }
             synchronized (storeEntryMapCache) {
                 storeEntryMapCache.remove(td.getStore());
             }
-            var parent = getDefaultDisplayParent(td);
-            parent.ifPresent(p -> p.setChildrenCache(null));
+            updateParentIndex(td);
         }
 
         this.listeners.forEach(l -> l.onStoreRemove(toDelete.toArray(DataStoreEntry[]::new)));
         refreshEntries();
+        markDeletion();
         saveAsync();
     }
 
     public void addStoreCategory(@NonNull DataStoreCategory cat) {
         cat.setDirectory(getCategoriesDir().resolve(cat.getUuid().toString()));
-        this.storeCategories.add(cat);
+        putStoreCategory(cat);
+        cat.markDirty();
         saveAsync();
 
         this.listeners.forEach(l -> l.onCategoryAdd(cat));
@@ -660,10 +699,18 @@ public abstract class DataStorage {
 
     public void addStoreEntryInProgress(@NonNull DataStoreEntry e) {
         this.storeEntriesInProgress.put(e, e);
+        if (e.getStore() != null) {
+            synchronized (storeEntriesInProgressByStore) {
+                storeEntriesInProgressByStore.put(e.getStore(), e);
+            }
+        }
     }
 
     public void removeStoreEntryInProgress(@NonNull DataStoreEntry e) {
         this.storeEntriesInProgress.remove(e);
+        synchronized (storeEntriesInProgressByStore) {
+            storeEntriesInProgressByStore.values().removeIf(found -> found.equals(e));
+        }
     }
 
     public DataStoreEntry addStoreEntryIfNotPresent(@NonNull DataStoreEntry e) {
@@ -693,15 +740,15 @@ public abstract class DataStorage {
         }
 
         e.setDirectory(getStoresDir().resolve(e.getUuid().toString()));
-        this.storeEntries.put(e, e);
-        displayParent.ifPresent(p -> {
-            p.setChildrenCache(null);
-        });
+        putStoreEntry(e);
+        e.markDirty();
+        updateParentIndex(e);
         saveAsync();
 
         this.listeners.forEach(l -> l.onStoreAdd(e));
         e.initializeEntry();
         e.refreshStore();
+        updateParentIndex(e);
         return e;
     }
 
@@ -732,13 +779,13 @@ public abstract class DataStorage {
             }
 
             e.setDirectory(getStoresDir().resolve(e.getUuid().toString()));
-            this.storeEntries.put(e, e);
-            displayParent.ifPresent(p -> {
-                p.setChildrenCache(null);
-            });
+            putStoreEntry(e);
+            e.markDirty();
+            updateParentIndex(e);
         }
         for (DataStoreEntry e : toAdd) {
             e.refreshStore();
+            updateParentIndex(e);
         }
         this.listeners.forEach(l -> l.onStoreAdd(toAdd.toArray(DataStoreEntry[]::new)));
         for (DataStoreEntry e : toAdd) {
@@ -768,16 +815,17 @@ public abstract class DataStorage {
 
     public void deleteStoreEntry(@NonNull DataStoreEntry store) {
         store.finalizeEntry();
-        this.storeEntries.remove(store);
+        removeStoreEntry(store);
         synchronized (identityStoreEntryMapCache) {
             identityStoreEntryMapCache.remove(store.getStore());
         }
         synchronized (storeEntryMapCache) {
             storeEntryMapCache.remove(store.getStore());
         }
-        getDefaultDisplayParent(store).ifPresent(p -> p.setChildrenCache(null));
+        updateParentIndex(store);
         this.listeners.forEach(l -> l.onStoreRemove(store));
         refreshEntries();
+        markDeletion();
         saveAsync();
     }
 
@@ -808,7 +856,8 @@ public abstract class DataStorage {
             }
         });
 
-        storeCategories.remove(cat);
+        removeStoreCategory(cat);
+        markDeletion();
         saveAsync();
         this.listeners.forEach(l -> l.onCategoryRemove(cat));
     }
@@ -942,27 +991,76 @@ public abstract class DataStorage {
             return Set.of();
         }
 
-        if (entry.getChildrenCache() != null) {
-            return entry.getChildrenCache();
+        if (storeEntries.get(entry) == null || isParentLoop(entry)) {
+            return Set.of();
         }
 
-        var entries = getStoreEntries();
-        if (!entries.contains(entry)) {
-            return Set.of();
+        List<DataStoreEntry> indexed;
+        synchronized (childrenIndex) {
+            var set = childrenIndex.get(entry);
+            if (set == null) {
+                return Set.of();
+            }
+            indexed = new ArrayList<>(set);
         }
 
-        var children = entries.stream()
-                .filter(other -> {
-                    if (other.getValidity() == DataStoreEntry.Validity.LOAD_FAILED) {
-                        return false;
+        return indexed.stream()
+                .filter(other -> other.getValidity() != DataStoreEntry.Validity.LOAD_FAILED
+                        && storeEntries.get(other) != null)
+                .collect(Collectors.toSet());
+    }
+
+    private Optional<DataStoreEntry> getDeclaredDisplayParent(DataStoreEntry entry) {
+        if (entry.getValidity() == DataStoreEntry.Validity.LOAD_FAILED) {
+            return Optional.empty();
+        }
+
+        try {
+            var provider = entry.getProvider();
+            return Optional.ofNullable(provider.getDisplayParent(entry));
+        } catch (Exception ex) {
+            return Optional.empty();
+        }
+    }
+
+    public void updateParentIndex(DataStoreEntry entry) {
+        DataStorageQuery.invalidate();
+        // The parent does not have to be present yet, so we index the declared parent
+        var removed = storeEntries.get(entry) != entry;
+        var parent = removed ? Optional.<DataStoreEntry>empty() : getDeclaredDisplayParent(entry);
+        synchronized (childrenIndex) {
+            var oldParent = parentIndex.remove(entry);
+            if (oldParent != null) {
+                var set = childrenIndex.get(oldParent);
+                if (set != null) {
+                    set.remove(entry);
+                    if (set.isEmpty()) {
+                        childrenIndex.remove(oldParent);
                     }
+                }
+            }
 
-                    var parent = getDefaultDisplayParent(other);
-                    return parent.isPresent() && parent.get().equals(entry) && !isParentLoop(entry);
-                })
-                .collect(Collectors.toSet());
-        entry.setChildrenCache(children);
-        return children;
+            if (parent.isPresent()) {
+                parentIndex.put(entry, parent.get());
+                childrenIndex.computeIfAbsent(parent.get(), k -> new HashSet<>()).add(entry);
+            }
+        }
+    }
+
+    private void rebuildParentIndex() {
+        DataStorageQuery.invalidate();
+        var parents = new HashMap<DataStoreEntry, DataStoreEntry>();
+        storeEntriesSet.forEach(entry -> {
+            getDeclaredDisplayParent(entry).ifPresent(p -> parents.put(entry, p));
+        });
+        synchronized (childrenIndex) {
+            parentIndex.clear();
+            childrenIndex.clear();
+            parents.forEach((entry, parent) -> {
+                parentIndex.put(entry, parent);
+                childrenIndex.computeIfAbsent(parent, k -> new HashSet<>()).add(entry);
+            });
+        }
     }
 
     public List<DataStoreCategory> getCategoryParentHierarchy(DataStoreCategory cat) {
@@ -1010,6 +1108,14 @@ public abstract class DataStorage {
     }
 
     public Optional<DataStoreEntry> getStoreEntryInProgressIfPresent(@NonNull DataStore store) {
+        synchronized (storeEntriesInProgressByStore) {
+            var found = storeEntriesInProgressByStore.get(store);
+            if (found != null && found.getStore() == store) {
+                return Optional.of(found);
+            }
+        }
+
+        // The store of an entry in progress might have been replaced in the meantime
         return storeEntriesInProgress.keySet().stream()
                 .filter(n -> n.getStore() == store)
                 .findFirst();
@@ -1075,17 +1181,26 @@ public abstract class DataStorage {
             return Optional.empty();
         }
 
-        return storeCategories.stream()
-                .filter(n -> {
-                    return Objects.equals(n.getUuid(), uuid);
-                })
-                .findFirst();
+        return Optional.ofNullable(storeCategoriesByUuid.get(uuid));
     }
 
     public Optional<DataStoreEntry> getStoreEntryIfPresent(@NonNull String name) {
-        return storeEntriesSet.stream()
+        // Names can change at any time, so a cached entry is only used if it still matches
+        var key = name.toLowerCase(Locale.ROOT);
+        var cached = storeEntriesByName.get(key);
+        if (cached != null && cached.getName().equalsIgnoreCase(name) && storeEntries.get(cached) == cached) {
+            return Optional.of(cached);
+        }
+
+        var found = storeEntriesSet.stream()
                 .filter(n -> n.getName().equalsIgnoreCase(name))
                 .findFirst();
+        if (found.isPresent()) {
+            storeEntriesByName.put(key, found.get());
+        } else {
+            storeEntriesByName.remove(key);
+        }
+        return found;
     }
 
     public String getStoreEntryDisplayName(DataStoreEntry entry) {
@@ -1117,7 +1232,36 @@ public abstract class DataStorage {
     }
 
     public Optional<DataStoreEntry> getStoreEntryIfPresent(UUID id) {
-        return storeEntriesSet.stream().filter(e -> e.getUuid().equals(id)).findAny();
+        if (id == null) {
+            return Optional.empty();
+        }
+
+        return Optional.ofNullable(storeEntriesByUuid.get(id));
+    }
+
+    protected void putStoreEntry(DataStoreEntry e) {
+        storeEntries.put(e, e);
+        storeEntriesByUuid.put(e.getUuid(), e);
+        DataStorageQuery.invalidate();
+    }
+
+    protected void removeStoreEntry(DataStoreEntry e) {
+        storeEntries.remove(e);
+        storeEntriesByUuid.remove(e.getUuid());
+        storeEntriesByName.values().removeIf(found -> found.equals(e));
+        DataStorageQuery.invalidate();
+    }
+
+    protected void putStoreCategory(DataStoreCategory cat) {
+        storeCategories.add(cat);
+        storeCategoriesByUuid.put(cat.getUuid(), cat);
+        DataStorageQuery.invalidate();
+    }
+
+    protected void removeStoreCategory(DataStoreCategory cat) {
+        storeCategories.remove(cat);
+        storeCategoriesByUuid.remove(cat.getUuid());
+        DataStorageQuery.invalidate();
     }
 
     public Set<DataStoreEntry> getStoreEntries() {
@@ -0,0 +1,61 @@
+package io.xpipe.app.storage;
+
+import io.xpipe.core.util.JacksonMapper;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import lombok.Value;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Map;
+
+@Value
+public class DataStorageDirectory {
+
+    Path path;
+
+    // If present, the file contents are served from slices of the vault snapshot
+    Map<String, ByteBuffer> cachedFiles;
+
+    public static DataStorageDirectory ofDisk(Path path) {
+        return new DataStorageDirectory(path, null);
+    }
+
+    public boolean exists(String name) {
+        if (cachedFiles != null) {
+            return cachedFiles.containsKey(name);
+        }
+
+        return Files.exists(path.resolve(name));
+    }
+
+    public JsonNode readTree(String name) throws IOException {
+        if (cachedFiles != null) {
+            return JacksonMapper.getDefault().readTree(new ByteBufferBackedInputStream(getCached(name)));
+        }
+
+        return JacksonMapper.getDefault().readTree(path.resolve(name).toFile());
+    }
+
+    public String readString(String name) throws IOException {
+        if (cachedFiles != null) {
+            return StandardCharsets.UTF_8.decode(getCached(name)).toString();
+        }
+
+        return Files.readString(path.resolve(name));
+    }
+
+    private ByteBuffer getCached(String name) throws IOException {
+        var buffer = cachedFiles.get(name);
+        if (buffer == null) {
+            throw new NoSuchFileException(path.resolve(name).toString());
+        }
+        // Every read gets its own position, the slices are shared
+        return buffer.duplicate();
+    }
+}
@@ -0,0 +1,214 @@
+package io.xpipe.app.storage;
+
+import io.xpipe.app.issue.TrackEvent;
+
+import lombok.Value;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+// An append-only log of file changes in the vault
+// Every record is durable on its own, the per-entry files are only brought up to date on compaction
+// Operations refer to absolute paths, so a journal is never applied to a different vault directory
+public class DataStorageJournal {
+
+    private static final byte WRITE = 0;
+    private static final byte DELETE = 1;
+    private static final int HEADER_SIZE = 12;
+    private static final long COMPACT_THRESHOLD = 4 * 1024 * 1024;
+
+    private final Path vaultDir;
+    private final Path file;
+
+    // Files that have been changed since the last compaction
+    // The journal is always compacted on load, so this does not have to be restored from the file
+    private final Set<Path> pendingFiles = ConcurrentHashMap.newKeySet();
+
+    public DataStorageJournal(Path vaultDir, Path file) {
+        this.vaultDir = vaultDir.toAbsolutePath().normalize();
+        this.file = file;
+    }
+
+    public Batch createBatch() {
+        return new Batch();
+    }
+
+    public void append(Batch batch) throws IOException {
+        if (batch.getOperations().isEmpty()) {
+            return;
+        }
+
+        var payload = batch.toBytes();
+        var crc = new CRC32();
+        crc.update(payload);
+        var buffer = ByteBuffer.allocate(HEADER_SIZE + payload.length)
+                .putInt(payload.length)
+                .putLong(crc.getValue())
+                .put(payload)
+                .flip();
+        try (var channel = FileChannel.open(
+                file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            // Only the record itself has to be durable
+            channel.force(false);
+        }
+        batch.getOperations().forEach(operation -> pendingFiles.add(operation.getFile()));
+    }
+
+    public Set<Path> getPendingFiles() {
+        return Set.copyOf(pendingFiles);
+    }
+
+    public boolean shouldCompact() throws IOException {
+        return Files.exists(file) && Files.size(file) > COMPACT_THRESHOLD;
+    }
+
+    // Returns the directories in which files have been changed
+    public Set<Path> compact() throws IOException {
+        if (!Files.exists(file)) {
+            pendingFiles.clear();
+            return Set.of();
+        }
+
+        // Only the last operation for every file matters
+        var latest = new LinkedHashMap<Path, Operation>();
+        for (var operation : readOperations()) {
+            latest.remove(operation.getFile());
+            latest.put(operation.getFile(), operation);
+        }
+
+        var directories = new HashSet<Path>();
+        for (var operation : latest.values()) {
+            var target = operation.getFile().normalize();
+            if (!target.isAbsolute() || !target.startsWith(vaultDir)) {
+                continue;
+            }
+
+            directories.add(target.getParent());
+
+            if (operation.getContent() != null) {
+                DataStorageWriter.DISK.write(target, operation.getContent());
+            } else {
+                DataStorageWriter.DISK.delete(target);
+            }
+        }
+
+        // If we crash before this, the operations are just applied again
+        Files.delete(file);
+        pendingFiles.clear();
+        TrackEvent.withTrace("Compacted vault journal")
+                .tag("files", latest.size())
+                .handle();
+        return directories;
+    }
+
+    private List<Operation> readOperations() throws IOException {
+        var buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        var list = new ArrayList<Operation>();
+        while (buffer.remaining() >= HEADER_SIZE) {
+            var length = buffer.getInt();
+            var checksum = buffer.getLong();
+            if (length < 0 || length > buffer.remaining()) {
+                break;
+            }
+
+            var payload = new byte[length];
+            buffer.get(payload);
+            var crc = new CRC32();
+            crc.update(payload);
+            if (crc.getValue() != checksum) {
+                break;
+            }
+
+            list.addAll(readRecord(ByteBuffer.wrap(payload)));
+        }
+
+        // A crash while appending can leave an incomplete record at the end, which is dropped
+        if (buffer.hasRemaining()) {
+            TrackEvent.withWarn("Vault journal has an incomplete tail")
+                    .tag("bytes", buffer.remaining())
+                    .handle();
+        }
+        return list;
+    }
+
+    private static List<Operation> readRecord(ByteBuffer buffer) {
+        var count = buffer.getInt();
+        var list = new ArrayList<Operation>(count);
+        for (int i = 0; i < count; i++) {
+            var type = buffer.get();
+            var path = Path.of(readString(buffer));
+            var content = type == WRITE ? readString(buffer) : null;
+            list.add(new Operation(path, content));
+        }
+        return list;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        var bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        var bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    @Value
+    private static class Operation {
+        Path file;
+        String content;
+    }
+
+    public class Batch implements DataStorageWriter {
+
+        private final List<Operation> operations = new ArrayList<>();
+
+        private List<Operation> getOperations() {
+            return operations;
+        }
+
+        @Override
+        public void write(Path file, String content) {
+            operations.add(new Operation(file.toAbsolutePath(), content));
+        }
+
+        @Override
+        public void delete(Path file) {
+            operations.add(new Operation(file.toAbsolutePath(), null));
+        }
+
+        private byte[] toBytes() throws IOException {
+            var bytes = new ByteArrayOutputStream();
+            var out = new DataOutputStream(bytes);
+            out.writeInt(operations.size());
+            for (var operation : operations) {
+                out.writeByte(operation.getContent() != null ? WRITE : DELETE);
+                writeString(out, operation.getFile().toString());
+                if (operation.getContent() != null) {
+                    writeString(out, operation.getContent());
+                }
+            }
+            out.flush();
+            return bytes.toByteArray();
+        }
+    }
+}
@@ -19,6 +19,9 @@ import lombok.Value;
 import java.io.CharArrayReader;
 import java.io.CharArrayWriter;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
 
 @Value
 public class DataStorageNode {
@@ -132,6 +135,26 @@ public class DataStorageNode {
         return JacksonMapper.getDefault().treeToValue(getContentNode(), DataStore.class);
     }
 
+    public List<UUID> getReferencedStoreIds() {
+        if (contentNode == null) {
+            return List.of();
+        }
+
+        // Entry references are serialized as objects with a store id
+        var ids = new ArrayList<UUID>();
+        for (var value : contentNode.findValues("storeId")) {
+            if (!value.isTextual() || value.asText().isBlank()) {
+                continue;
+            }
+
+            try {
+                ids.add(UUID.fromString(value.asText()));
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+        return ids;
+    }
+
     public boolean hasAccess() {
         // In this case the loading failed
         // We have access to it, we just can't read it
@@ -1,11 +1,23 @@
 package io.xpipe.app.storage;
 
-import java.util.ArrayList;
-import java.util.List;
+import lombok.Value;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 
 public class DataStorageQuery {
 
+    private static final int MAX_CACHED_PATTERNS = 256;
+    private static final Map<String, Pattern> PATTERN_CACHE = new ConcurrentHashMap<>();
+    private static final AtomicLong VERSION = new AtomicLong();
+    private static volatile Index index;
+
+    public static void invalidate() {
+        VERSION.incrementAndGet();
+    }
+
     public static List<DataStoreEntry> queryUserInput(String connection) {
         var found = query("**", "**" + connection + "**", "*");
         if (found.size() > 1) {
@@ -24,36 +36,36 @@ public class DataStorageQuery {
             return List.of();
         }
 
-        var catMatcher = Pattern.compile(toRegex("all connections/" + categoryFilter.toLowerCase()));
-        var conMatcher = Pattern.compile(toRegex(connectionFilter.toLowerCase()));
-        var typeMatcher = Pattern.compile(toRegex(typeFilter.toLowerCase()));
+        var catMatcher = compile("all connections/" + categoryFilter.toLowerCase());
+        var conMatcher = compile(connectionFilter.toLowerCase());
+        var typeMatcher = compile(typeFilter.toLowerCase());
+
+        // Only look at the range of paths that can match the literal prefix of the filter
+        var rows = getIndex().getRows();
+        var prefix = getLiteralPrefix(connectionFilter.toLowerCase());
+        var start = prefix.isEmpty() ? 0 : findFirst(rows, prefix);
 
         List<DataStoreEntry> found = new ArrayList<>();
-        for (DataStoreEntry storeEntry : DataStorage.get().getStoreEntries()) {
-            if (!storeEntry.getValidity().isUsable()) {
-                continue;
+        for (int i = start; i < rows.size(); i++) {
+            var row = rows.get(i);
+            if (!row.getStorePath().startsWith(prefix)) {
+                break;
             }
 
-            var name = DataStorage.get().getStorePath(storeEntry).toString();
-            if (!conMatcher.matcher(name).matches()) {
+            var storeEntry = row.getEntry();
+            if (!storeEntry.getValidity().isUsable()) {
                 continue;
             }
 
-            var cat = DataStorage.get()
-                    .getStoreCategoryIfPresent(storeEntry.getCategoryUuid())
-                    .orElse(null);
-            if (cat == null) {
+            if (!conMatcher.matcher(row.getStorePath()).matches()) {
                 continue;
             }
 
-            var c = DataStorage.get().getStorePath(cat).toString();
-            if (!catMatcher.matcher(c).matches()) {
+            if (row.getCategoryPath() == null || !catMatcher.matcher(row.getCategoryPath()).matches()) {
                 continue;
             }
 
-            if (!typeMatcher
-                    .matcher(storeEntry.getProvider().getId().toLowerCase())
-                    .matches()) {
+            if (!typeMatcher.matcher(getType(storeEntry)).matches()) {
                 continue;
             }
 
@@ -62,6 +74,95 @@ public class DataStorageQuery {
         return found;
     }
 
+    private static Pattern compile(String glob) {
+        var cached = PATTERN_CACHE.get(glob);
+        if (cached != null) {
+            return cached;
+        }
+
+        if (PATTERN_CACHE.size() >= MAX_CACHED_PATTERNS) {
+            PATTERN_CACHE.clear();
+        }
+        var pattern = Pattern.compile(toRegex(glob));
+        PATTERN_CACHE.put(glob, pattern);
+        return pattern;
+    }
+
+    private static String getType(DataStoreEntry entry) {
+        var provider = entry.getProvider();
+        return provider != null ? provider.getId().toLowerCase() : "";
+    }
+
+    private static Index getIndex() {
+        var current = index;
+        var version = VERSION.get();
+        if (current != null && current.getVersion() == version) {
+            return current;
+        }
+
+        // Paths are computed once per version instead of walking the hierarchies for every query
+        var storage = DataStorage.get();
+        var categoryPaths = new HashMap<UUID, String>();
+        for (var cat : storage.getStoreCategories()) {
+            categoryPaths.put(cat.getUuid(), storage.getStorePath(cat).toString());
+        }
+
+        var rows = new ArrayList<Row>();
+        for (var entry : storage.getStoreEntries()) {
+            if (entry.getValidity() == DataStoreEntry.Validity.LOAD_FAILED) {
+                continue;
+            }
+
+            var path = storage.getStorePath(entry).toString();
+            var categoryPath = entry.getCategoryUuid() != null ? categoryPaths.get(entry.getCategoryUuid()) : null;
+            rows.add(new Row(path, categoryPath, entry));
+        }
+        rows.sort(Comparator.comparing(Row::getStorePath));
+
+        var built = new Index(version, rows);
+        index = built;
+        return built;
+    }
+
+    private static int findFirst(List<Row> rows, String prefix) {
+        int low = 0;
+        int high = rows.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (rows.get(mid).getStorePath().compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static String getLiteralPrefix(String glob) {
+        for (int i = 0; i < glob.length(); i++) {
+            switch (glob.charAt(i)) {
+                case '*', '#', '?', '[', ']', '{', '}', ',', '\\', '!' -> {
+                    return glob.substring(0, i);
+                }
+                default -> {}
+            }
+        }
+        return glob;
+    }
+
+    @Value
+    private static class Index {
+        long version;
+        List<Row> rows;
+    }
+
+    @Value
+    private static class Row {
+        String storePath;
+        String categoryPath;
+        DataStoreEntry entry;
+    }
+
     private static String toRegex(String pattern) {
         pattern = pattern.replaceAll("\\*\\*", "#");
         // https://stackoverflow.com/a/17369948/6477761
@@ -0,0 +1,255 @@
+package io.xpipe.app.storage;
+
+import io.xpipe.app.issue.ErrorEvent;
+import io.xpipe.app.issue.TrackEvent;
+
+import lombok.Value;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// A single file cache of the contents of all vault directories
+// The per-directory files remain the source of truth. Every cached directory is only used if the modification
+// dates and sizes of the directory and its files still match, so any external change or git sync invalidates it.
+public class DataStorageSnapshot {
+
+    private static final int MAGIC = 0x58505653;
+    private static final int VERSION = 3;
+    private static final long MAX_CACHED_FILE_SIZE = 1024 * 1024;
+
+    private final Map<Path, CachedDirectory> directories;
+    private final AtomicInteger hits = new AtomicInteger();
+
+    private DataStorageSnapshot(Map<Path, CachedDirectory> directories) {
+        this.directories = directories;
+    }
+
+    public static DataStorageSnapshot empty() {
+        return new DataStorageSnapshot(Map.of());
+    }
+
+    public static DataStorageSnapshot load(Path file, Path storageDir) {
+        if (!Files.exists(file)) {
+            return empty();
+        }
+
+        try {
+            // The file is read into memory instead of being mapped, otherwise it could not be replaced on Windows
+            // while the mapping is still alive
+            var buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+            if (buffer.remaining() < 16 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return empty();
+            }
+
+            var checksum = buffer.getLong();
+            var crc = new CRC32();
+            crc.update(buffer.slice());
+            if (crc.getValue() != checksum) {
+                TrackEvent.withWarn("Vault snapshot is corrupted").handle();
+                return empty();
+            }
+
+            // The snapshot might have been created for a different vault location
+            if (!storageDir.toString().equals(readString(buffer))) {
+                return empty();
+            }
+
+            var count = buffer.getInt();
+            var map = new HashMap<Path, CachedDirectory>(count);
+            for (int i = 0; i < count; i++) {
+                var path = storageDir.resolve(readString(buffer));
+                var modified = buffer.getLong();
+                var fileCount = buffer.getInt();
+                var files = new HashMap<String, CachedFile>(fileCount);
+                for (int j = 0; j < fileCount; j++) {
+                    var name = readString(buffer);
+                    var size = buffer.getLong();
+                    var fileModified = buffer.getLong();
+                    var length = buffer.getInt();
+                    var content = buffer.slice(buffer.position(), length).asReadOnlyBuffer();
+                    buffer.position(buffer.position() + length);
+                    files.put(name, new CachedFile(size, fileModified, content));
+                }
+                map.put(path, new CachedDirectory(modified, files));
+            }
+            return new DataStorageSnapshot(map);
+        } catch (Exception ex) {
+            ErrorEvent.fromThrowable(ex).omit().expected().handle();
+            return empty();
+        }
+    }
+
+    public static void write(Path file, Path storageDir, List<StorageElement> elements) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        var out = new DataOutputStream(bytes);
+        writeString(out, storageDir.toString());
+
+        var written = new ArrayList<byte[]>();
+        for (var element : elements) {
+            var dirBytes = writeDirectory(storageDir, element);
+            if (dirBytes != null) {
+                written.add(dirBytes);
+            }
+        }
+        out.writeInt(written.size());
+        for (var dirBytes : written) {
+            out.write(dirBytes);
+        }
+        out.flush();
+
+        var payload = bytes.toByteArray();
+        var crc = new CRC32();
+        crc.update(payload);
+        var header = ByteBuffer.allocate(16);
+        header.putInt(MAGIC).putInt(VERSION).putLong(crc.getValue());
+
+        Files.createDirectories(file.getParent());
+        var temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (var channel = FileChannel.open(
+                temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.write(header.flip());
+            channel.write(ByteBuffer.wrap(payload));
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static byte[] writeDirectory(Path storageDir, StorageElement element) throws IOException {
+        // Elements that have been changed after the last save don't match their files
+        var dir = element.getDirectory();
+        if (element.isDirty() || dir == null || !Files.isDirectory(dir)) {
+            return null;
+        }
+
+        // The contents are serialized from memory, the element has just been saved, so they match the files
+        var contents = new TreeMap<String, String>();
+        try {
+            element.writeData(new DataStorageWriter() {
+                @Override
+                public void write(Path file, String content) {
+                    contents.put(file.getFileName().toString(), content);
+                }
+
+                @Override
+                public void delete(Path file) {
+                    contents.remove(file.getFileName().toString());
+                }
+            });
+        } catch (Exception ex) {
+            ErrorEvent.fromThrowable(ex).omit().expected().handle();
+            return null;
+        }
+
+        List<Path> files;
+        try (Stream<Path> list = Files.list(dir)) {
+            // Temporary files of interrupted writes are not part of the vault
+            files = list.filter(file -> !file.getFileName().toString().endsWith(DataStorageWriter.TEMP_SUFFIX))
+                    .toList();
+        }
+        // Don't bother with unusual directory contents
+        var names = files.stream().map(file -> file.getFileName().toString()).collect(Collectors.toSet());
+        if (!names.equals(contents.keySet())) {
+            return null;
+        }
+
+        var bytes = new ByteArrayOutputStream();
+        var out = new DataOutputStream(bytes);
+        writeString(out, storageDir.relativize(dir).toString());
+        out.writeLong(getModified(Files.readAttributes(dir, BasicFileAttributes.class)));
+        out.writeInt(contents.size());
+        for (var e : contents.entrySet()) {
+            var attributes = Files.readAttributes(dir.resolve(e.getKey()), BasicFileAttributes.class);
+            if (!attributes.isRegularFile() || attributes.size() > MAX_CACHED_FILE_SIZE) {
+                return null;
+            }
+
+            writeString(out, e.getKey());
+            out.writeLong(attributes.size());
+            out.writeLong(getModified(attributes));
+            var content = e.getValue().getBytes(StandardCharsets.UTF_8);
+            out.writeInt(content.length);
+            out.write(content);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static long getModified(BasicFileAttributes attributes) {
+        return attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        var bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        var bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public Optional<DataStorageDirectory> getDirectory(Path dir) {
+        var cached = directories.get(dir);
+        if (cached == null || !cached.isUpToDate(dir)) {
+            return Optional.empty();
+        }
+
+        hits.incrementAndGet();
+        var files = new HashMap<String, ByteBuffer>();
+        cached.getFiles().forEach((name, file) -> files.put(name, file.getContent()));
+        return Optional.of(new DataStorageDirectory(dir, files));
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    @Value
+    private static class CachedDirectory {
+        long modified;
+        Map<String, CachedFile> files;
+
+        private boolean isUpToDate(Path dir) {
+            try {
+                // Any added, removed, or replaced file changes the modification date of the directory
+                if (getModified(Files.readAttributes(dir, BasicFileAttributes.class)) != modified) {
+                    return false;
+                }
+
+                for (var e : files.entrySet()) {
+                    var attributes = Files.readAttributes(dir.resolve(e.getKey()), BasicFileAttributes.class);
+                    if (attributes.size() != e.getValue().getSize()
+                            || getModified(attributes) != e.getValue().getModified()) {
+                        return false;
+                    }
+                }
+                return true;
+            } catch (IOException ex) {
+                return false;
+            }
+        }
+    }
+
+    @Value
+    private static class CachedFile {
+        long size;
+        long modified;
+        ByteBuffer content;
+    }
+}
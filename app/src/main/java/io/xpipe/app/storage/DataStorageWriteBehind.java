@@ -0,0 +1,62 @@
+package io.xpipe.app.storage;
+
+import io.xpipe.app.util.ThreadHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class DataStorageWriteBehind {
+
+    private static final int DEBOUNCE_MILLIS = 500;
+
+    private final Set<StorageElement> dirtyElements = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Runnable flush;
+    private volatile boolean deletionPending;
+
+    public DataStorageWriteBehind(Runnable flush) {
+        this.flush = flush;
+    }
+
+    public void markDirty(StorageElement element) {
+        dirtyElements.add(element);
+        schedule();
+    }
+
+    public void markDeletion() {
+        deletionPending = true;
+        schedule();
+    }
+
+    public void schedule() {
+        // Coalesce all changes within the debounce window into one flush
+        if (!scheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        ThreadHelper.runAsync(() -> {
+            ThreadHelper.sleep(DEBOUNCE_MILLIS);
+            scheduled.set(false);
+            flush.run();
+        });
+    }
+
+    public List<StorageElement> drainElements() {
+        var list = new ArrayList<>(dirtyElements);
+        list.forEach(dirtyElements::remove);
+        return list;
+    }
+
+    public boolean drainDeletion() {
+        var pending = deletionPending;
+        deletionPending = false;
+        return pending;
+    }
+
+    public boolean hasPendingChanges() {
+        return !dirtyElements.isEmpty() || deletionPending;
+    }
+}
@@ -0,0 +1,31 @@
+package io.xpipe.app.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+public interface DataStorageWriter {
+
+    String TEMP_SUFFIX = ".tmp";
+
+    DataStorageWriter DISK = new DataStorageWriter() {
+        @Override
+        public void write(Path file, String content) throws IOException {
+            Files.createDirectories(file.getParent());
+            // Write to a temporary file first so that a crash can never leave a partially written file behind
+            var temp = file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+            Files.writeString(temp, content);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        @Override
+        public void delete(Path file) throws IOException {
+            Files.deleteIfExists(file);
+        }
+    };
+
+    void write(Path file, String content) throws IOException;
+
+    void delete(Path file) throws IOException;
+}
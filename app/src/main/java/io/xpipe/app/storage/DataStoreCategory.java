@@ -12,7 +12,6 @@ import lombok.EqualsAndHashCode;
 import lombok.NonNull;
 import lombok.Value;
 import lombok.experimental.NonFinal;
-import org.apache.commons.io.FileUtils;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -78,18 +77,19 @@ public class DataStoreCategory extends StorageElement {
                 DataStoreCategoryConfig.empty());
     }
 
-    public static Optional<DataStoreCategory> fromDirectory(Path dir) throws Exception {
+    public static Optional<DataStoreCategory> fromDirectory(DataStorageDirectory directory) throws Exception {
         ObjectMapper mapper = JacksonMapper.getDefault();
 
-        var entryFile = dir.resolve("category.json");
-        var stateFile = dir.resolve("state.json");
-        if (!Files.exists(entryFile)) {
+        var dir = directory.getPath();
+        var entryFile = "category.json";
+        var stateFile = "state.json";
+        if (!directory.exists(entryFile)) {
             return Optional.empty();
         }
 
         var stateJson =
-                Files.exists(stateFile) ? mapper.readTree(stateFile.toFile()) : JsonNodeFactory.instance.objectNode();
-        var json = mapper.readTree(entryFile.toFile());
+                directory.exists(stateFile) ? directory.readTree(stateFile) : JsonNodeFactory.instance.objectNode();
+        var json = directory.readTree(entryFile);
 
         var uuid = UUID.fromString(json.required("uuid").textValue());
         var parentUuid = Optional.ofNullable(json.get("parentUuid"))
@@ -185,16 +185,8 @@ public class DataStoreCategory extends StorageElement {
         return new Path[] {directory.resolve("category.json")};
     }
 
-    public void writeDataToDisk() throws Exception {
-        if (!dirty) {
-            return;
-        }
-
-        // Reset the dirty state early
-        // That way, if any other changes are made during this save operation,
-        // the dirty bit can be set to true again
-        dirty = false;
-
+    @Override
+    protected void writeData(DataStorageWriter writer) throws Exception {
         ObjectMapper mapper = JacksonMapper.getDefault();
         ObjectNode obj = JsonNodeFactory.instance.objectNode();
         ObjectNode stateObj = JsonNodeFactory.instance.objectNode();
@@ -209,8 +201,7 @@ public class DataStoreCategory extends StorageElement {
 
         var entryString = mapper.writeValueAsString(obj);
         var stateString = mapper.writeValueAsString(stateObj);
-        FileUtils.forceMkdir(directory.toFile());
-        Files.writeString(directory.resolve("category.json"), entryString);
-        Files.writeString(directory.resolve("state.json"), stateString);
+        writer.write(directory.resolve("category.json"), entryString);
+        writer.write(directory.resolve("state.json"), stateString);
     }
 }
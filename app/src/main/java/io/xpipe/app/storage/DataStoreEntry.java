@@ -18,7 +18,6 @@ import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.*;
 import lombok.experimental.NonFinal;
-import org.apache.commons.io.FileUtils;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -43,6 +42,11 @@ public class DataStoreEntry extends StorageElement {
     @NonFinal
     DataStore store;
 
+    // The node and resolved references of the last parse, used to skip parsing unchanged stores
+    @Getter(AccessLevel.NONE)
+    @NonFinal
+    ParseState parseState;
+
     AtomicInteger busyCounter = new AtomicInteger();
 
     @Getter
@@ -58,10 +62,6 @@ public class DataStoreEntry extends StorageElement {
     @NonFinal
     JsonNode storePersistentStateNode;
 
-    @NonFinal
-    @Setter
-    Set<DataStoreEntry> childrenCache = null;
-
     @NonFinal
     String notes;
 
@@ -193,24 +193,25 @@ public class DataStoreEntry extends StorageElement {
         return "icons/" + icon + ".svg";
     }
 
-    public static Optional<DataStoreEntry> fromDirectory(Path dir) throws Exception {
+    public static Optional<DataStoreEntry> fromDirectory(DataStorageDirectory directory) throws Exception {
         ObjectMapper mapper = JacksonMapper.getDefault();
 
-        var entryFile = dir.resolve("entry.json");
-        var storeFile = dir.resolve("store.json");
-        var stateFile = dir.resolve("state.json");
-        var normalNotesFile = dir.resolve("notes.md");
-        var encryptedNotesFile = dir.resolve("notes.json");
-        if (!Files.exists(entryFile) || !Files.exists(storeFile)) {
+        var dir = directory.getPath();
+        var entryFile = "entry.json";
+        var storeFile = "store.json";
+        var stateFile = "state.json";
+        var normalNotesFile = "notes.md";
+        var encryptedNotesFile = "notes.json";
+        if (!directory.exists(entryFile) || !directory.exists(storeFile)) {
             return Optional.empty();
         }
 
-        if (!Files.exists(stateFile)) {
+        if (!directory.exists(stateFile)) {
             stateFile = entryFile;
         }
 
-        var json = mapper.readTree(entryFile.toFile());
-        var stateJson = mapper.readTree(stateFile.toFile());
+        var json = directory.readTree(entryFile);
+        var stateJson = directory.readTree(stateFile);
         var uuid = UUID.fromString(json.required("uuid").textValue());
         var categoryUuid = Optional.ofNullable(json.get("categoryUuid"))
                 .map(jsonNode -> UUID.fromString(jsonNode.textValue()))
@@ -269,11 +270,11 @@ public class DataStoreEntry extends StorageElement {
         }
 
         String notes = null;
-        if (Files.exists(normalNotesFile)) {
-            notes = Files.readString(normalNotesFile);
+        if (directory.exists(normalNotesFile)) {
+            notes = directory.readString(normalNotesFile);
         }
-        if (Files.exists(encryptedNotesFile)) {
-            var node = DataStorageNode.readPossiblyEncryptedNode(mapper.readTree(encryptedNotesFile.toFile()));
+        if (directory.exists(encryptedNotesFile)) {
+            var node = DataStorageNode.readPossiblyEncryptedNode(directory.readTree(encryptedNotesFile));
             var mdNode = node.getContentNode().get("markdown");
             notes = mdNode != null ? mdNode.asText() : null;
         }
@@ -283,7 +284,7 @@ public class DataStoreEntry extends StorageElement {
 
         DataStorageNode node;
         try {
-            var fileNode = mapper.readTree(storeFile.toFile());
+            var fileNode = directory.readTree(storeFile);
             node = DataStorageNode.readPossiblyEncryptedNode(fileNode);
         } catch (JacksonException ex) {
             ErrorEvent.fromThrowable(ex).omit().expected().handle();
@@ -291,7 +292,7 @@ public class DataStoreEntry extends StorageElement {
         }
 
         var store = node.parseStore();
-        return Optional.of(new DataStoreEntry(
+        var entry = new DataStoreEntry(
                 dir,
                 uuid,
                 categoryUuid,
@@ -307,7 +308,13 @@ public class DataStoreEntry extends StorageElement {
                 color,
                 notes,
                 order,
-                icon));
+                icon);
+        if (store != null) {
+            // Remember what the store was parsed against, the next refresh only has to parse it again if that changes
+            var ids = node.getReferencedStoreIds();
+            entry.parseState = new ParseState(node, ids, resolveReferences(ids));
+        }
+        return Optional.of(entry);
     }
 
     public void setExplicitOrder(Order uuid) {
@@ -437,16 +444,8 @@ public class DataStoreEntry extends StorageElement {
                 .toArray(Path[]::new);
     }
 
-    public void writeDataToDisk() throws Exception {
-        if (!dirty) {
-            return;
-        }
-
-        // Reset the dirty state early
-        // That way, if any other changes are made during this save operation,
-        // the dirty bit can be set to true again
-        dirty = false;
-
+    @Override
+    protected void writeData(DataStorageWriter writer) throws Exception {
         ObjectMapper mapper = JacksonMapper.getDefault();
 
         ObjectNode obj = JsonNodeFactory.instance.objectNode();
@@ -467,19 +466,18 @@ public class DataStoreEntry extends StorageElement {
         var stateString = mapper.writeValueAsString(stateObj);
         var storeString = mapper.writeValueAsString(DataStorageNode.encryptNodeIfNeeded(storeNode));
 
-        FileUtils.forceMkdir(directory.toFile());
-        Files.writeString(directory.resolve("state.json"), stateString);
-        Files.writeString(directory.resolve("entry.json"), entryString);
-        Files.writeString(directory.resolve("store.json"), storeString);
+        writer.write(directory.resolve("state.json"), stateString);
+        writer.write(directory.resolve("entry.json"), entryString);
+        writer.write(directory.resolve("store.json"), storeString);
 
         var encryptNotes = storeNode.isEncrypted();
         var normalNotesFile = directory.resolve("notes.md");
         var encryptedNotesFile = directory.resolve("notes.json");
-        if (Files.exists(normalNotesFile) && (notes == null || encryptNotes)) {
-            Files.delete(normalNotesFile);
+        if (notes == null || encryptNotes) {
+            writer.delete(normalNotesFile);
         }
-        if (Files.exists(encryptedNotesFile) && (notes == null || !encryptNotes)) {
-            Files.delete(encryptedNotesFile);
+        if (notes == null || !encryptNotes) {
+            writer.delete(encryptedNotesFile);
         }
         if (notes != null && encryptNotes) {
             var notesNode = JsonNodeFactory.instance.objectNode();
@@ -487,9 +485,9 @@ public class DataStoreEntry extends StorageElement {
             var storageNode = DataStorageNode.encryptNodeIfNeeded(new DataStorageNode(
                     notesNode, storeNode.isPerUser(), storeNode.isReadableForUser(), storeNode.isEncrypted()));
             var string = mapper.writeValueAsString(storageNode);
-            Files.writeString(encryptedNotesFile, string);
+            writer.write(encryptedNotesFile, string);
         } else if (notes != null) {
-            Files.writeString(normalNotesFile, notes);
+            writer.write(normalNotesFile, notes);
         }
         lastWrittenNotes = notes;
     }
@@ -512,11 +510,11 @@ public class DataStoreEntry extends StorageElement {
         store = e.store;
         validity = e.validity;
         provider = e.provider;
-        childrenCache = null;
         storeCache.clear();
         storeCache.putAll(e.storeCache);
         validity = store == null ? Validity.LOAD_FAILED : store.isComplete() ? Validity.COMPLETE : Validity.INCOMPLETE;
         storePersistentState = e.storePersistentState;
+        updateParentIndex();
         storePersistentStateNode = e.storePersistentStateNode;
         icon = e.icon;
         notifyUpdate(false, true);
@@ -538,14 +536,22 @@ public class DataStoreEntry extends StorageElement {
         if (updateTime) {
             lastModified = Instant.now();
         }
-        childrenCache = null;
-        dirty = true;
+        updateParentIndex();
+        markDirty();
         notifyUpdate(false, updateTime);
     }
 
+    private void updateParentIndex() {
+        // The display parent depends on the store, so the parent index of the storage has to follow
+        var storage = DataStorage.get();
+        if (storage != null) {
+            storage.updateParentIndex(this);
+        }
+    }
+
     public void reassignStoreNode() {
         this.storeNode = DataStorageNode.ofNewStore(store);
-        dirty = true;
+        markDirty();
     }
 
     public void validate() {
@@ -574,19 +580,69 @@ public class DataStoreEntry extends StorageElement {
         }
     }
 
+    public List<UUID> getReferencedStoreIds() {
+        var node = storeNode;
+        var last = parseState;
+        return last != null && last.getNode() == node ? last.getReferencedIds() : node.getReferencedStoreIds();
+    }
+
+    private static List<DataStoreEntry> resolveReferences(List<UUID> ids) {
+        var storage = DataStorage.get();
+        var list = new ArrayList<DataStoreEntry>(ids.size());
+        for (var id : ids) {
+            // Same resolution rules as the entry ref deserializer
+            var found = storage != null
+                    ? storage.getStoreEntryIfPresent(id)
+                            .filter(e -> e.getValidity() != Validity.LOAD_FAILED
+                                    || !e.getStoreNode().isReadableForUser())
+                            .orElse(null)
+                    : null;
+            list.add(found);
+        }
+        return list;
+    }
+
+    private static boolean isSameReferences(List<DataStoreEntry> a, List<DataStoreEntry> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+
+        for (int i = 0; i < a.size(); i++) {
+            if (a.get(i) != b.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public void refreshStore() {
         if (validity == Validity.LOAD_FAILED) {
             return;
         }
 
+        var node = storeNode;
+        var last = parseState;
+        var ids = last != null && last.getNode() == node ? last.getReferencedIds() : node.getReferencedStoreIds();
+        var references = resolveReferences(ids);
+
         DataStore newStore;
-        try {
-            newStore = storeNode.parseStore();
-            // Check whether we have a provider as well
-            DataStoreProviders.byStore(newStore);
-        } catch (Throwable e) {
-            ErrorEvent.fromThrowable(e).handle();
-            newStore = null;
+        if (store != null
+                && last != null
+                && last.getNode() == node
+                && isSameReferences(last.getReferences(), references)) {
+            // Neither the node nor any referenced entry has changed, so parsing would yield the same store
+            newStore = store;
+        } else {
+            try {
+                newStore = node.parseStore();
+                // Check whether we have a provider as well
+                DataStoreProviders.byStore(newStore);
+                parseState = newStore != null ? new ParseState(node, ids, references) : null;
+            } catch (Throwable e) {
+                ErrorEvent.fromThrowable(e).handle();
+                newStore = null;
+                parseState = null;
+            }
         }
 
         if (newStore == null) {
@@ -685,4 +741,11 @@ public class DataStoreEntry extends StorageElement {
         @JsonProperty("bottom")
         BOTTOM
     }
+
+    @Value
+    private static class ParseState {
+        DataStorageNode node;
+        List<UUID> referencedIds;
+        List<DataStoreEntry> references;
+    }
 }
@@ -1,15 +1,18 @@
 package io.xpipe.app.storage;
 
+import io.xpipe.app.core.AppCache;
+import io.xpipe.app.core.AppProperties;
 import io.xpipe.app.ext.DataStorageExtensionProvider;
 import io.xpipe.app.ext.LocalStore;
 import io.xpipe.app.issue.ErrorEvent;
 import io.xpipe.app.issue.TrackEvent;
 import io.xpipe.app.prefs.AppPrefs;
 import io.xpipe.app.util.EncryptionKey;
-import io.xpipe.app.util.ThreadHelper;
 import io.xpipe.core.process.OsType;
+import io.xpipe.core.util.FailableFunction;
 
 import lombok.Getter;
+import lombok.Value;
 import org.apache.commons.io.FileUtils;
 
 import java.io.IOException;
@@ -17,6 +20,8 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantLock;
@@ -26,6 +31,9 @@ import javax.crypto.SecretKey;
 
 public class StandardStorage extends DataStorage {
 
+    private static final int LOAD_PARALLELISM =
+            Math.max(2, Math.min(16, Runtime.getRuntime().availableProcessors() * 2));
+
     private final List<Path> directoriesToKeep = new ArrayList<>();
 
     @Getter
@@ -41,10 +49,16 @@ public class StandardStorage extends DataStorage {
 
     private boolean saveQueued;
     private final ReentrantLock busyIo = new ReentrantLock();
+    private final DataStorageWriteBehind writeBehind = new DataStorageWriteBehind(this::saveIncremental);
+    private final DataStorageJournal journal;
+    private final boolean journalEnabled;
 
     StandardStorage() {
         this.dataStorageSyncHandler = DataStorageSyncHandler.getInstance();
         this.dataStorageUserHandler = DataStorageUserHandler.getInstance();
+        // The journal is kept outside the vault directory, so it is never picked up by git sync
+        this.journal = new DataStorageJournal(dir, dir.resolveSibling(dir.getFileName() + "-journal.bin"));
+        this.journalEnabled = AppProperties.get().isStorageJournal();
     }
 
     @Override
@@ -66,6 +80,10 @@ public class StandardStorage extends DataStorage {
                     .handle();
         }
 
+        // Apply changes that were only recorded in the journal when the application last exited
+        // This is also done if the journal has been disabled in the meantime
+        var replayedDirectories = compactJournal();
+
         try {
             initSystemInfo();
         } catch (Exception e) {
@@ -105,28 +123,27 @@ public class StandardStorage extends DataStorage {
                     .handle();
         }
 
+        var loadStart = System.nanoTime();
+        var snapshot = DataStorageSnapshot.load(getSnapshotFile(), dir);
         try {
             var exception = new AtomicReference<Exception>();
-            try (var cats = Files.list(categoriesDir)) {
-                cats.filter(Files::isDirectory).forEach(path -> {
-                    try {
-                        try (Stream<Path> list = Files.list(path)) {
-                            if (list.findAny().isEmpty()) {
-                                return;
-                            }
-                        }
-
-                        var c = DataStoreCategory.fromDirectory(path);
-                        c.ifPresent(storeCategories::add);
-                    } catch (IOException ex) {
-                        // IO exceptions are not expected
-                        exception.set(new IOException("Unable to load data from " + path + ". Is it corrupted?", ex));
-                        directoriesToKeep.add(path);
-                    } catch (Exception ex) {
-                        // Data corruption and schema changes are expected
-                        ErrorEvent.fromThrowable(ex).expected().omit().build().handle();
-                    }
-                });
+            var categoryResults = loadDirectories(categoriesDir, snapshot, DataStoreCategory::fromDirectory);
+            for (var result : categoryResults) {
+                var path = result.getPath();
+                if (result.getException() instanceof IOException ex) {
+                    // IO exceptions are not expected
+                    exception.set(new IOException("Unable to load data from " + path + ". Is it corrupted?", ex));
+                    directoriesToKeep.add(path);
+                } else if (result.getException() != null) {
+                    // Data corruption and schema changes are expected
+                    ErrorEvent.fromThrowable(result.getException())
+                            .expected()
+                            .omit()
+                            .build()
+                            .handle();
+                } else if (result.getValue() != null) {
+                    putStoreCategory(result.getValue());
+                }
             }
 
             // Show one exception
@@ -137,63 +154,65 @@ public class StandardStorage extends DataStorage {
             setupBuiltinCategories();
             selectedCategory = getStoreCategoryIfPresent(DEFAULT_CATEGORY_UUID).orElseThrow();
 
-            try (var dirs = Files.list(storesDir)) {
-                dirs.filter(Files::isDirectory).forEach(path -> {
-                    try {
-                        try (Stream<Path> list = Files.list(path)) {
-                            if (list.findAny().isEmpty()) {
-                                return;
-                            }
-                        }
-
-                        var entry = DataStoreEntry.fromDirectory(path);
-                        if (entry.isEmpty()) {
-                            return;
-                        }
-
-                        var foundCat = getStoreCategoryIfPresent(entry.get().getCategoryUuid());
-                        if (foundCat.isEmpty()) {
-                            entry.get().setCategoryUuid(null);
-                        }
-
-                        storeEntries.put(entry.get(), entry.get());
-                    } catch (IOException ex) {
-                        // IO exceptions are not expected
-                        exception.set(new IOException("Unable to load data from " + path + ". Is it corrupted?", ex));
+            var entryResults = loadDirectories(storesDir, snapshot, DataStoreEntry::fromDirectory);
+            for (var result : entryResults) {
+                var path = result.getPath();
+                if (result.getException() instanceof IOException ex) {
+                    // IO exceptions are not expected
+                    exception.set(new IOException("Unable to load data from " + path + ". Is it corrupted?", ex));
+                    directoriesToKeep.add(path);
+                } else if (result.getException() != null) {
+                    // Data corruption and schema changes are expected
+
+                    // We only keep invalid entries in developer mode as there's no point in keeping them in
+                    // production.
+                    if (AppPrefs.get().isDevelopmentEnvironment()) {
                         directoriesToKeep.add(path);
-                    } catch (Exception ex) {
-                        // Data corruption and schema changes are expected
-
-                        // We only keep invalid entries in developer mode as there's no point in keeping them in
-                        // production.
-                        if (AppPrefs.get().isDevelopmentEnvironment()) {
-                            directoriesToKeep.add(path);
-                        }
+                    }
 
-                        ErrorEvent.fromThrowable(ex).expected().omit().build().handle();
+                    ErrorEvent.fromThrowable(result.getException())
+                            .expected()
+                            .omit()
+                            .build()
+                            .handle();
+                } else if (result.getValue() != null) {
+                    var entry = result.getValue();
+                    var foundCat = getStoreCategoryIfPresent(entry.getCategoryUuid());
+                    if (foundCat.isEmpty()) {
+                        entry.setCategoryUuid(null);
                     }
-                });
 
-                // Show one exception
-                if (exception.get() != null) {
-                    ErrorEvent.fromThrowable(exception.get()).expected().handle();
+                    putStoreEntry(entry);
                 }
+            }
 
-                storeEntriesSet.forEach(e -> {
-                    if (e.getCategoryUuid() == null
-                            || getStoreCategoryIfPresent(e.getCategoryUuid()).isEmpty()) {
-                        e.setCategoryUuid(DEFAULT_CATEGORY_UUID);
-                    }
-
-                    if (e.getCategoryUuid() != null && e.getCategoryUuid().equals(ALL_CONNECTIONS_CATEGORY_UUID)) {
-                        e.setCategoryUuid(DEFAULT_CATEGORY_UUID);
-                    }
-                });
+            // Show one exception
+            if (exception.get() != null) {
+                ErrorEvent.fromThrowable(exception.get()).expected().handle();
             }
+
+            storeEntriesSet.forEach(e -> {
+                if (e.getCategoryUuid() == null
+                        || getStoreCategoryIfPresent(e.getCategoryUuid()).isEmpty()) {
+                    e.setCategoryUuid(DEFAULT_CATEGORY_UUID);
+                }
+
+                if (e.getCategoryUuid() != null && e.getCategoryUuid().equals(ALL_CONNECTIONS_CATEGORY_UUID)) {
+                    e.setCategoryUuid(DEFAULT_CATEGORY_UUID);
+                }
+            });
         } catch (IOException ex) {
             ErrorEvent.fromThrowable(ex).terminal(true).build().handle();
         }
 
+        TrackEvent.withInfo("Loaded vault contents")
+                .tag("categories", storeCategories.size())
+                .tag("entries", storeEntries.size())
+                .tag("snapshotHits", snapshot.getHits())
+                .tag("threads", LOAD_PARALLELISM)
+                .tag("millis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - loadStart))
+                .handle();
+
         var hasFixedLocal = storeEntriesSet.stream()
                 .anyMatch(dataStoreEntry -> dataStoreEntry.getUuid().equals(LOCAL_ID));
 
@@ -201,7 +220,7 @@ public class StandardStorage extends DataStorage {
             var local = getStoreEntry(LOCAL_ID);
             if (local.getValidity() == DataStoreEntry.Validity.LOAD_FAILED) {
                 try {
-                    storeEntries.remove(local);
+                    removeStoreEntry(local);
                     local.deleteFromDisk();
                     hasFixedLocal = false;
                 } catch (IOException ex) {
@@ -218,7 +237,7 @@ public class StandardStorage extends DataStorage {
             var e = DataStoreEntry.createNew(
                     LOCAL_ID, DataStorage.DEFAULT_CATEGORY_UUID, "Local Machine", new LocalStore());
             e.setDirectory(getStoresDir().resolve(LOCAL_ID.toString()));
-            storeEntries.put(e, e);
+            putStoreEntry(e);
             e.validate();
         }
 
@@ -228,14 +247,12 @@ public class StandardStorage extends DataStorage {
         }
 
         // Reload stores, this time with all entry refs present
-        // These do however not have a completed validity yet
-        refreshEntries();
-        // Bring entries into completed validity if possible
-        // Needed for chained stores
+        // Entries are refreshed in dependency order, so chained stores also reach a completed validity
         refreshEntries();
         // Let providers work on complete stores
         callProviders();
         // Update validaties after any possible changes
+        // Only entries whose store node or referenced entries changed are parsed again
         refreshEntries();
         // Add any possible missing synthetic parents
         storeEntriesSet.forEach(entry -> {
@@ -250,8 +267,11 @@ public class StandardStorage extends DataStorage {
         filterPerUserEntries();
 
         if (!hasFixedLocal) {
-            storeEntriesSet.removeIf(dataStoreEntry ->
-                    !dataStoreEntry.getUuid().equals(LOCAL_ID) && dataStoreEntry.getStore() instanceof LocalStore);
+            storeEntriesSet.stream()
+                    .filter(dataStoreEntry -> !dataStoreEntry.getUuid().equals(LOCAL_ID)
+                            && dataStoreEntry.getStore() instanceof LocalStore)
+                    .toList()
+                    .forEach(this::removeStoreEntry);
             storeEntriesSet.stream()
                     .filter(entry -> entry.getValidity() != DataStoreEntry.Validity.LOAD_FAILED)
                     .forEach(entry -> {
@@ -267,6 +287,73 @@ public class StandardStorage extends DataStorage {
         loaded = true;
         busyIo.unlock();
         this.dataStorageSyncHandler.afterStorageLoad();
+
+        // The replayed changes have not been synced yet, so they are saved again like any other change
+        markReplayedDirty(replayedDirectories);
+    }
+
+    private void markReplayedDirty(Set<Path> directories) {
+        if (directories.isEmpty()) {
+            return;
+        }
+
+        storeCategories.stream()
+                .filter(c -> directories.contains(c.getDirectory().toAbsolutePath().normalize()))
+                .forEach(StorageElement::markDirty);
+        storeEntriesSet.stream()
+                .filter(e -> directories.contains(e.getDirectory().toAbsolutePath().normalize()))
+                .forEach(StorageElement::markDirty);
+    }
+
+    private <T> List<LoadResult<T>> loadDirectories(
+            Path dir, DataStorageSnapshot snapshot, FailableFunction<DataStorageDirectory, Optional<T>, Exception> loader)
+            throws IOException {
+        List<Path> dirs;
+        try (var s = Files.list(dir)) {
+            // Sort to always merge the results in the same order
+            dirs = s.filter(Files::isDirectory).sorted().toList();
+        }
+
+        // Parsing and decryption are independent for every directory, so we can do this concurrently
+        try (var executor = Executors.newFixedThreadPool(
+                LOAD_PARALLELISM, Thread.ofVirtual().name("vault-loader-", 0).factory())) {
+            var futures = dirs.stream()
+                    .map(path -> CompletableFuture.supplyAsync(() -> loadDirectory(path, snapshot, loader), executor))
+                    .toList();
+            return futures.stream().map(CompletableFuture::join).toList();
+        }
+    }
+
+    private <T> LoadResult<T> loadDirectory(
+            Path path, DataStorageSnapshot snapshot, FailableFunction<DataStorageDirectory, Optional<T>, Exception> loader) {
+        try {
+            var cached = snapshot.getDirectory(path);
+            if (cached.isPresent()) {
+                return new LoadResult<>(path, loader.apply(cached.get()).orElse(null), null);
+            }
+
+            List<Path> files;
+            try (Stream<Path> list = Files.list(path)) {
+                files = list.toList();
+            }
+
+            // A crash during a write can leave temporary files behind
+            var hasData = false;
+            for (var file : files) {
+                if (file.getFileName().toString().endsWith(DataStorageWriter.TEMP_SUFFIX)) {
+                    Files.deleteIfExists(file);
+                } else {
+                    hasData = true;
+                }
+            }
+            if (!hasData) {
+                return new LoadResult<>(path, null, null);
+            }
+
+            return new LoadResult<>(path, loader.apply(DataStorageDirectory.ofDisk(path)).orElse(null), null);
+        } catch (Exception ex) {
+            return new LoadResult<>(path, null, ex);
+        }
     }
 
     private void filterPerUserEntries() {
@@ -276,7 +363,7 @@ public class StandardStorage extends DataStorage {
         directoriesToKeep.addAll(toRemove.stream()
                 .map(dataStoreEntry -> dataStoreEntry.getDirectory())
                 .toList());
-        toRemove.forEach(storeEntries::remove);
+        toRemove.forEach(this::removeStoreEntry);
     }
 
     private boolean shouldRemoveOtherUserEntry(DataStoreEntry entry) {
@@ -305,24 +392,189 @@ public class StandardStorage extends DataStorage {
         });
     }
 
-    public void saveAsync() {
-        // If we are already loading or saving, don't queue up another operation.
-        // This could otherwise lead to thread starvation with virtual threads
+    @Override
+    public void markDirty(StorageElement element) {
+        writeBehind.markDirty(element);
+    }
+
+    @Override
+    protected void markDeletion() {
+        writeBehind.markDeletion();
+    }
 
-        // Technically the load and save operations also return instantly if locked, but let's not even create new
-        // threads here
+    public void saveAsync() {
+        // Changes are collected and written in the background
+        // The last dispose save will save everything anyway, it's about optimizing before that
+        writeBehind.schedule();
+    }
 
+    private void saveIncremental() {
         // Technically we would have to synchronize the saveQueued update to avoid a rare lost update
         // but in practice it doesn't really matter as the save queueing is optional
-        // The last dispose save will save everything anyway, it's about optimizing before that
-        if (busyIo.isLocked()) {
+        if (!busyIo.tryLock()) {
             saveQueued = true;
             return;
         }
 
-        ThreadHelper.runAsync(() -> {
-            save(false);
-        });
+        try {
+            if (!loaded || disposed || !writeBehind.hasPendingChanges()) {
+                return;
+            }
+
+            var elements = writeBehind.drainElements();
+            var deletion = writeBehind.drainDeletion();
+
+            if (journalEnabled) {
+                appendToJournal(elements, deletion);
+            } else {
+                writeIncremental(elements, deletion);
+            }
+        } finally {
+            busyIo.unlock();
+        }
+
+        if (saveQueued) {
+            saveQueued = false;
+            saveAsync();
+        }
+    }
+
+    private void writeIncremental(List<StorageElement> elements, boolean deletion) {
+        this.dataStorageSyncHandler.beforeStorageSave();
+
+        var exception = new AtomicReference<Exception>();
+        for (var element : elements) {
+            try {
+                // Only write elements that are actually part of the storage
+                if (element instanceof DataStoreCategory c) {
+                    if (!storeCategories.contains(c) || !c.isDirty()) {
+                        continue;
+                    }
+
+                    var exists = Files.exists(c.getDirectory());
+                    c.writeDataToDisk();
+                    dataStorageSyncHandler.handleCategory(c, exists, true);
+                } else if (element instanceof DataStoreEntry e) {
+                    if (storeEntries.get(e) != e || !e.shouldSave() || !e.isDirty()) {
+                        continue;
+                    }
+
+                    var exists = Files.exists(e.getDirectory());
+                    e.writeDataToDisk();
+                    dataStorageSyncHandler.handleEntry(e, exists, true);
+                }
+            } catch (IOException ex) {
+                // IO exceptions are not expected
+                exception.set(ex);
+            } catch (Exception ex) {
+                // Data corruption and schema changes are expected
+                ErrorEvent.fromThrowable(ex).expected().omit().build().handle();
+            }
+        }
+
+        // Show one exception
+        if (exception.get() != null) {
+            ErrorEvent.fromThrowable(exception.get()).expected().handle();
+        }
+
+        // Only scan the directories if there is something to delete
+        if (deletion) {
+            deleteLeftovers();
+        }
+        dataStorageSyncHandler.afterStorageSave();
+    }
+
+    private void appendToJournal(List<StorageElement> elements, boolean deletion) {
+        var batch = journal.createBatch();
+        if (deletion) {
+            // The emptied directories themselves are removed and synced on the next full save
+            try {
+                getDeletedFiles().forEach(batch::delete);
+            } catch (IOException ex) {
+                ErrorEvent.fromThrowable(ex).expected().handle();
+            }
+        }
+
+        for (var element : elements) {
+            try {
+                // The dirty state is kept, so the next full save still writes and syncs these elements
+                if (element instanceof DataStoreCategory c) {
+                    if (storeCategories.contains(c) && c.isDirty()) {
+                        c.writeData(batch);
+                    }
+                } else if (element instanceof DataStoreEntry e) {
+                    if (storeEntries.get(e) == e && e.shouldSave() && e.isDirty()) {
+                        e.writeData(batch);
+                    }
+                }
+            } catch (Exception ex) {
+                // Data corruption and schema changes are expected
+                ErrorEvent.fromThrowable(ex).expected().omit().build().handle();
+            }
+        }
+
+        try {
+            journal.append(batch);
+            if (journal.shouldCompact()) {
+                journal.compact();
+            }
+        } catch (IOException ex) {
+            ErrorEvent.fromThrowable(ex).expected().handle();
+        }
+    }
+
+    private Set<Path> getDeletedFiles() throws IOException {
+        var files = new LinkedHashSet<Path>();
+        for (var parent : List.of(getStoresDir(), getCategoriesDir())) {
+            try (var s = Files.list(parent)) {
+                for (var directory : s.filter(Files::isDirectory).toList()) {
+                    if (isDeletedDirectory(directory)) {
+                        try (var list = Files.list(directory)) {
+                            list.filter(Files::isRegularFile).forEach(files::add);
+                        }
+                    }
+                }
+            }
+        }
+
+        // Elements might have been created and deleted again without ever being written to their directory
+        for (var file : journal.getPendingFiles()) {
+            if (isDeletedDirectory(file.getParent())) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    private boolean isDeletedDirectory(Path directory) {
+        if (directoriesToKeep.contains(directory)) {
+            return false;
+        }
+
+        UUID uuid;
+        try {
+            uuid = UUID.fromString(directory.getFileName().toString());
+        } catch (IllegalArgumentException ex) {
+            // Other directories are cleaned up on the next full save
+            return false;
+        }
+
+        if (directory.getParent().equals(getStoresDir())) {
+            return getStoreEntryIfPresent(uuid).isEmpty();
+        }
+        if (directory.getParent().equals(getCategoriesDir())) {
+            return getStoreCategoryIfPresent(uuid).isEmpty();
+        }
+        return false;
+    }
+
+    private Set<Path> compactJournal() {
+        try {
+            return journal.compact();
+        } catch (IOException ex) {
+            ErrorEvent.fromThrowable(ex).expected().handle();
+            return Set.of();
+        }
     }
 
     public void save(boolean dispose) {
@@ -349,6 +601,8 @@ public class StandardStorage extends DataStorage {
 
         this.saveQueued = false;
 
+        // Bring the per-entry files up to date before they are synced
+        compactJournal();
         this.dataStorageSyncHandler.beforeStorageSave();
 
         try {
@@ -403,6 +657,7 @@ public class StandardStorage extends DataStorage {
         dataStorageUserHandler.save();
         dataStorageSyncHandler.afterStorageSave();
         if (dispose) {
+            writeSnapshot();
             disposed = true;
         }
 
@@ -413,6 +668,20 @@ public class StandardStorage extends DataStorage {
         }
     }
 
+    private Path getSnapshotFile() {
+        return AppCache.getBasePath().resolve("vault-snapshot.bin");
+    }
+
+    private void writeSnapshot() {
+        var elements = new ArrayList<StorageElement>(storeCategories);
+        storeEntriesSet.stream().filter(e -> e.shouldSave()).forEach(elements::add);
+        try {
+            DataStorageSnapshot.write(getSnapshotFile(), dir, elements);
+        } catch (Exception ex) {
+            ErrorEvent.fromThrowable(ex).omit().expected().handle();
+        }
+    }
+
     @Override
     public boolean supportsSync() {
         return dataStorageSyncHandler.supportsSync();
@@ -530,4 +799,11 @@ public class StandardStorage extends DataStorage {
             Files.writeString(file, s);
         }
     }
+
+    @Value
+    private static class LoadResult<T> {
+        Path path;
+        T value;
+        Exception exception;
+    }
 }
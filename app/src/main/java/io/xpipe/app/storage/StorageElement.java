@@ -66,14 +66,27 @@ public abstract class StorageElement {
 
     public abstract Path[] getShareableFiles();
 
+    public void markDirty() {
+        dirty = true;
+        var storage = DataStorage.get();
+        if (storage != null) {
+            storage.markDirty(this);
+        }
+    }
+
     public void notifyUpdate(boolean used, boolean modified) {
         if (used) {
             lastUsed = Instant.now();
-            dirty = true;
         }
         if (modified) {
             lastModified = Instant.now();
-            dirty = true;
+        }
+        if (used || modified) {
+            markDirty();
+        }
+        if (modified) {
+            // Names, categories and parents are part of the query paths
+            DataStorageQuery.invalidate();
         }
         synchronized (listeners) {
             listeners.forEach(l -> l.onUpdate());
@@ -90,7 +103,20 @@ public abstract class StorageElement {
         FileUtils.deleteDirectory(directory.toFile());
     }
 
-    public abstract void writeDataToDisk() throws Exception;
+    public void writeDataToDisk() throws Exception {
+        if (!dirty) {
+            return;
+        }
+
+        // Reset the dirty state early
+        // That way, if any other changes are made during this save operation,
+        // the dirty bit can be set to true again
+        dirty = false;
+
+        writeData(DataStorageWriter.DISK);
+    }
+
+    protected abstract void writeData(DataStorageWriter writer) throws Exception;
 
     public synchronized Instant getLastAccess() {
         if (getLastUsed() == null) {
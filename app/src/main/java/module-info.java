@@ -127,6 +127,7 @@ open module io.xpipe.app {
             ShellStartExchangeImpl,
             ShellStopExchangeImpl,
             ShellExecExchangeImpl,
+            ShellMultiExecExchangeImpl,
             ConnectionQueryExchangeImpl,
             ConnectionInfoExchangeImpl,
             ConnectionRemoveExchangeImpl,
@@ -146,6 +147,7 @@ open module io.xpipe.app {
             FsReadExchangeImpl,
             FsScriptExchangeImpl,
             FsWriteExchangeImpl,
+            FsUploadExchangeImpl,
             AskpassExchangeImpl,
             TerminalPrepareExchangeImpl,
             TerminalRegisterExchangeImpl,
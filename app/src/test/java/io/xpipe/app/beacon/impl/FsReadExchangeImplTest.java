@@ -0,0 +1,56 @@
+package io.xpipe.app.beacon.impl;
+
+import io.xpipe.app.beacon.impl.FsReadExchangeImpl.Range;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class FsReadExchangeImplTest {
+
+    @Test
+    public void testRanges() {
+        Assertions.assertEquals(new Range(0, 100), Range.parse("bytes=0-99", 1000));
+        Assertions.assertEquals(new Range(500, 500), Range.parse("bytes=500-", 1000));
+        Assertions.assertEquals(new Range(900, 100), Range.parse("bytes=-100", 1000));
+        Assertions.assertEquals(new Range(999, 1), Range.parse("bytes= 999-999 ", 1000));
+    }
+
+    @Test
+    public void testClampedRanges() {
+        Assertions.assertEquals(new Range(500, 500), Range.parse("bytes=500-5000", 1000));
+        Assertions.assertEquals(new Range(0, 1000), Range.parse("bytes=-5000", 1000));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"bytes=1000-", "bytes=1000-2000", "bytes=-0"})
+    public void testUnsatisfiableRanges(String header) {
+        Assertions.assertSame(Range.UNSATISFIABLE, Range.parse(header, 1000));
+    }
+
+    @Test
+    public void testEmptyFile() {
+        Assertions.assertSame(Range.UNSATISFIABLE, Range.parse("bytes=0-", 0));
+        Assertions.assertSame(Range.UNSATISFIABLE, Range.parse("bytes=-10", 0));
+    }
+
+    @ParameterizedTest
+    @ValueSource(
+            strings = {
+                "bytes=",
+                "bytes=-",
+                "bytes=abc",
+                "bytes=a-b",
+                "bytes=10-5",
+                "bytes=+1-5",
+                "bytes=--5",
+                "bytes=0-1,5-6",
+                "items=0-10",
+                "0-10",
+                "bytes=99999999999999999999-"
+            })
+    public void testIgnoredRanges(String header) {
+        Assertions.assertNull(Range.parse(header, 1000));
+    }
+}
@@ -0,0 +1,148 @@
+package io.xpipe.app.test;
+
+import io.xpipe.app.storage.DataStorageJournal;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+
+public class DataStorageJournalTest {
+
+    @TempDir
+    Path temp;
+
+    Path vault;
+    Path file;
+    DataStorageJournal journal;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        vault = temp.resolve("storage");
+        file = temp.resolve("storage-journal.bin");
+        Files.createDirectories(vault);
+        journal = new DataStorageJournal(vault, file);
+    }
+
+    private void append(String name, String content) throws IOException {
+        var batch = journal.createBatch();
+        batch.write(vault.resolve(name), content);
+        journal.append(batch);
+    }
+
+    @Test
+    public void testReplay() throws IOException {
+        append("a/entry.json", "a1");
+        append("b/entry.json", "b1");
+        append("a/entry.json", "a2");
+
+        Assertions.assertEquals(Set.of(vault.resolve("a"), vault.resolve("b")), journal.compact());
+        Assertions.assertEquals("a2", Files.readString(vault.resolve("a/entry.json")));
+        Assertions.assertEquals("b1", Files.readString(vault.resolve("b/entry.json")));
+        Assertions.assertFalse(Files.exists(file));
+    }
+
+    @Test
+    public void testDelete() throws IOException {
+        append("a/entry.json", "a1");
+        var batch = journal.createBatch();
+        batch.delete(vault.resolve("a/entry.json"));
+        journal.append(batch);
+
+        journal.compact();
+        Assertions.assertFalse(Files.exists(vault.resolve("a/entry.json")));
+    }
+
+    @Test
+    public void testPendingFiles() throws IOException {
+        append("a/entry.json", "a1");
+        Assertions.assertEquals(Set.of(vault.resolve("a/entry.json")), journal.getPendingFiles());
+
+        journal.compact();
+        Assertions.assertTrue(journal.getPendingFiles().isEmpty());
+    }
+
+    @Test
+    public void testTornTail() throws IOException {
+        append("a/entry.json", "a1");
+        var complete = Files.size(file);
+        append("b/entry.json", "b1");
+
+        // Cut the second record in the middle of its payload
+        try (var channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(file) - 3);
+        }
+        Assertions.assertTrue(Files.size(file) > complete);
+
+        journal.compact();
+        Assertions.assertEquals("a1", Files.readString(vault.resolve("a/entry.json")));
+        Assertions.assertFalse(Files.exists(vault.resolve("b/entry.json")));
+        Assertions.assertFalse(Files.exists(file));
+    }
+
+    @Test
+    public void testTornHeader() throws IOException {
+        append("a/entry.json", "a1");
+        var complete = Files.size(file);
+        append("b/entry.json", "b1");
+
+        // Only a part of the length and checksum header has been written
+        try (var channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(complete + 5);
+        }
+
+        journal.compact();
+        Assertions.assertEquals("a1", Files.readString(vault.resolve("a/entry.json")));
+        Assertions.assertFalse(Files.exists(vault.resolve("b/entry.json")));
+    }
+
+    @Test
+    public void testChecksumMismatch() throws IOException {
+        append("a/entry.json", "a1");
+        append("b/entry.json", "b1");
+        append("c/entry.json", "c1");
+
+        // Corrupt the last byte of the second record, which is part of the file content
+        var bytes = Files.readAllBytes(file);
+        var secondEnd = findSecondRecordEnd(bytes);
+        bytes[secondEnd - 1] ^= 0x01;
+        Files.write(file, bytes);
+
+        // Nothing after a corrupted record can be trusted
+        journal.compact();
+        Assertions.assertEquals("a1", Files.readString(vault.resolve("a/entry.json")));
+        Assertions.assertFalse(Files.exists(vault.resolve("b/entry.json")));
+        Assertions.assertFalse(Files.exists(vault.resolve("c/entry.json")));
+    }
+
+    @Test
+    public void testOtherVault() throws IOException {
+        append("a/entry.json", "a1");
+
+        var otherVault = temp.resolve("other");
+        Files.createDirectories(otherVault);
+        new DataStorageJournal(otherVault, file).compact();
+        Assertions.assertFalse(Files.exists(otherVault.resolve("a/entry.json")));
+        Assertions.assertFalse(Files.exists(vault.resolve("a/entry.json")));
+    }
+
+    private static int findSecondRecordEnd(byte[] bytes) {
+        // Every record starts with its payload length and an eight byte checksum
+        var first = 12 + readInt(bytes, 0);
+        return first + 12 + readInt(bytes, first);
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 24)
+                | ((bytes[offset + 1] & 0xFF) << 16)
+                | ((bytes[offset + 2] & 0xFF) << 8)
+                | (bytes[offset + 3] & 0xFF);
+    }
+}
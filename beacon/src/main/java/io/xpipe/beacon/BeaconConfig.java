@@ -14,6 +14,9 @@ public class BeaconConfig {
     private static final String ATTACH_DEBUGGER_PROP = "io.xpipe.beacon.attachDebuggerToDaemon";
     private static final String EXEC_DEBUG_PROP = "io.xpipe.beacon.printDaemonOutput";
     private static final String EXEC_PROCESS_PROP = "io.xpipe.beacon.customDaemonCommand";
+    private static final String HTTP_THREADS_PROP = "io.xpipe.beacon.httpThreads";
+    private static final String HTTP_BACKLOG_PROP = "io.xpipe.beacon.httpBacklog";
+    private static final int DEFAULT_HTTP_BACKLOG = 256;
 
     public static boolean printMessages() {
         if (System.getProperty(PRINT_MESSAGES_PROPERTY) != null) {
@@ -43,6 +46,21 @@ public class BeaconConfig {
         return false;
     }
 
+    public static int getHttpThreadCount() {
+        // A non-positive value means that every request is handled in its own virtual thread
+        if (System.getProperty(HTTP_THREADS_PROP) != null) {
+            return Integer.parseInt(System.getProperty(HTTP_THREADS_PROP));
+        }
+        return 0;
+    }
+
+    public static int getHttpBacklog() {
+        if (System.getProperty(HTTP_BACKLOG_PROP) != null) {
+            return Integer.parseInt(System.getProperty(HTTP_BACKLOG_PROP));
+        }
+        return DEFAULT_HTTP_BACKLOG;
+    }
+
     public static int getUsedPort() {
         var beaconPort = System.getenv("BEACON_PORT");
         if (beaconPort != null && !beaconPort.isBlank()) {
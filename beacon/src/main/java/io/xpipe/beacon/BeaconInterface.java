@@ -91,4 +91,10 @@ public abstract class BeaconInterface<T> {
     public Object getSynchronizationObject() {
         return null;
     }
+
+    // Requests exceeding this limit wait until another request of the same type has finished
+    // This prevents long-running exchanges from using up all shell connections and handler threads
+    public int getMaxConcurrentRequests() {
+        return 0;
+    }
 }
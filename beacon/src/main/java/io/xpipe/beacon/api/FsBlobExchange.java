@@ -16,6 +16,11 @@ public class FsBlobExchange extends BeaconInterface<FsBlobExchange.Request> {
         return "/fs/blob";
     }
 
+    @Override
+    public int getMaxConcurrentRequests() {
+        return 8;
+    }
+
     @Override
     public boolean readRawRequestBody() {
         return true;
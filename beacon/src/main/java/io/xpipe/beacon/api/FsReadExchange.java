@@ -17,6 +17,11 @@ public class FsReadExchange extends BeaconInterface<FsReadExchange.Request> {
         return "/fs/read";
     }
 
+    @Override
+    public int getMaxConcurrentRequests() {
+        return 8;
+    }
+
     @Jacksonized
     @Builder
     @Value
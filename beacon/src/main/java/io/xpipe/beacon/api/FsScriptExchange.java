@@ -17,6 +17,11 @@ public class FsScriptExchange extends BeaconInterface<FsScriptExchange.Request>
         return "/fs/script";
     }
 
+    @Override
+    public int getMaxConcurrentRequests() {
+        return 8;
+    }
+
     @Jacksonized
     @Builder
     @Value
@@ -0,0 +1,36 @@
+package io.xpipe.beacon.api;
+
+import io.xpipe.beacon.BeaconInterface;
+
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+// Writes the raw request body directly to the file specified by the connection and path query parameters
+public class FsUploadExchange extends BeaconInterface<FsUploadExchange.Request> {
+
+    @Override
+    public String getPath() {
+        return "/fs/upload";
+    }
+
+    @Override
+    public int getMaxConcurrentRequests() {
+        return 8;
+    }
+
+    @Override
+    public boolean readRawRequestBody() {
+        return true;
+    }
+
+    @Jacksonized
+    @Builder
+    @Value
+    public static class Request {}
+
+    @Jacksonized
+    @Builder
+    @Value
+    public static class Response {}
+}
@@ -17,6 +17,11 @@ public class FsWriteExchange extends BeaconInterface<FsWriteExchange.Request> {
         return "/fs/write";
     }
 
+    @Override
+    public int getMaxConcurrentRequests() {
+        return 8;
+    }
+
     @Jacksonized
     @Builder
     @Value
@@ -16,6 +16,11 @@ public class ShellExecExchange extends BeaconInterface<ShellExecExchange.Request
         return "/shell/exec";
     }
 
+    @Override
+    public int getMaxConcurrentRequests() {
+        return 16;
+    }
+
     @Jacksonized
     @Builder
     @Value
@@ -25,6 +30,12 @@ public class ShellExecExchange extends BeaconInterface<ShellExecExchange.Request
 
         @NonNull
         String command;
+
+        // If enabled, the output is sent as newline-delimited json frames while the command is running
+        boolean stream;
+
+        // The combined amount of stdout and stderr bytes to return, any further output is discarded
+        Long maxOutputBytes;
     }
 
     @Jacksonized
@@ -38,5 +49,7 @@ public class ShellExecExchange extends BeaconInterface<ShellExecExchange.Request
 
         @NonNull
         String stderr;
+
+        boolean truncated;
     }
 }
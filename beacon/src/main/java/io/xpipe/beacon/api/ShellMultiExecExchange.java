@@ -0,0 +1,55 @@
+package io.xpipe.beacon.api;
+
+import io.xpipe.beacon.BeaconInterface;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+// Runs a command on all shell connections matching the filters
+// The results are sent as newline-delimited json frames in the order in which the commands complete
+public class ShellMultiExecExchange extends BeaconInterface<ShellMultiExecExchange.Request> {
+
+    @Override
+    public String getPath() {
+        return "/shell/multiExec";
+    }
+
+    @Override
+    public int getMaxConcurrentRequests() {
+        return 2;
+    }
+
+    @Jacksonized
+    @Builder
+    @Value
+    public static class Request {
+        @NonNull
+        String categoryFilter;
+
+        @NonNull
+        String connectionFilter;
+
+        @NonNull
+        String typeFilter;
+
+        @NonNull
+        String command;
+
+        // The amount of connections that are started and executed on at the same time
+        Integer parallelism;
+
+        // The combined amount of stdout and stderr bytes to return per connection
+        Long maxOutputBytes;
+
+        // Whether to close the sessions that were started for this request only, defaults to true
+        // Sessions that have been started before are always kept open
+        Boolean closeSessions;
+    }
+
+    @Jacksonized
+    @Builder
+    @Value
+    public static class Response {}
+}
@@ -20,6 +20,11 @@ public class ShellStartExchange extends BeaconInterface<ShellStartExchange.Reque
         return "/shell/start";
     }
 
+    @Override
+    public int getMaxConcurrentRequests() {
+        return 8;
+    }
+
     @Jacksonized
     @Builder
     @Value
@@ -30,6 +30,7 @@ open module io.xpipe.beacon {
             ShellStartExchange,
             ShellStopExchange,
             ShellExecExchange,
+            ShellMultiExecExchange,
             DaemonModeExchange,
             DaemonStatusExchange,
             DaemonFocusExchange,
@@ -56,5 +57,6 @@ open module io.xpipe.beacon {
             FsBlobExchange,
             FsWriteExchange,
             FsScriptExchange,
+            FsUploadExchange,
             DaemonVersionExchange;
 }
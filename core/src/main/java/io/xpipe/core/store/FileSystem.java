@@ -6,7 +6,9 @@ import java.io.Closeable;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -38,6 +40,18 @@ public interface FileSystem extends Closeable, AutoCloseable {
 
     boolean directoryExists(FilePath file) throws Exception;
 
+    default Map<FilePath, FileEntry> statFiles(List<FilePath> files) throws Exception {
+        var map = new LinkedHashMap<FilePath, FileEntry>();
+        for (var file : files) {
+            if (directoryExists(file)) {
+                map.put(file, FileEntry.ofDirectory(this, file));
+            } else if (fileExists(file)) {
+                map.put(file, new FileEntry(this, file, null, null, null, FileKind.FILE));
+            }
+        }
+        return map;
+    }
+
     void directoryAccessible(FilePath file) throws Exception;
 
     Stream<FileEntry> listFiles(FilePath file) throws Exception;
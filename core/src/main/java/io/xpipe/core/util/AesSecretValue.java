@@ -4,9 +4,9 @@ import lombok.EqualsAndHashCode;
 import lombok.SneakyThrows;
 import lombok.experimental.SuperBuilder;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
+import java.security.InvalidAlgorithmParameterException;
 import java.security.SecureRandom;
+import java.util.Arrays;
 import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.GCMParameterSpec;
@@ -19,6 +19,10 @@ public abstract class AesSecretValue extends EncryptedSecretValue {
     private static final int TAG_LENGTH_BIT = 128;
     private static final int IV_LENGTH_BYTE = 12;
 
+    // Cipher instances are not thread-safe and expensive to look up, so every thread keeps its own
+    private static final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial(AesSecretValue::createCipher);
+    private static final ThreadLocal<SecureRandom> RANDOM = ThreadLocal.withInitial(SecureRandom::new);
+
     public AesSecretValue(String encryptedValue) {
         super(encryptedValue);
     }
@@ -31,9 +35,14 @@ public abstract class AesSecretValue extends EncryptedSecretValue {
         super(b);
     }
 
+    @SneakyThrows
+    private static Cipher createCipher() {
+        return Cipher.getInstance(ENCRYPT_ALGO);
+    }
+
     protected byte[] getNonce(int numBytes) {
         byte[] nonce = new byte[numBytes];
-        new SecureRandom().nextBytes(nonce);
+        RANDOM.get().nextBytes(nonce);
         return nonce;
     }
 
@@ -51,34 +60,40 @@ public abstract class AesSecretValue extends EncryptedSecretValue {
             throw new IllegalStateException("Missing secret key");
         }
 
-        Cipher cipher = Cipher.getInstance(ENCRYPT_ALGO);
         var iv = getNonce(IV_LENGTH_BYTE);
-        cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(TAG_LENGTH_BIT, iv));
-        var bytes = cipher.doFinal(c);
-        bytes = ByteBuffer.allocate(iv.length + bytes.length)
-                .order(ByteOrder.LITTLE_ENDIAN)
-                .put(iv)
-                .put(bytes)
-                .array();
-        return bytes;
+        var spec = new GCMParameterSpec(TAG_LENGTH_BIT, iv);
+        Cipher cipher = CIPHER.get();
+        try {
+            cipher.init(Cipher.ENCRYPT_MODE, secretKey, spec);
+        } catch (InvalidAlgorithmParameterException ex) {
+            // A cipher refuses to encrypt with the same key and iv as its last encryption,
+            // which happens for fixed nonces. A fresh instance does not know about the last one
+            cipher = createCipher();
+            cipher.init(Cipher.ENCRYPT_MODE, secretKey, spec);
+        }
+
+        // Write the iv and the cipher text into one buffer
+        var bytes = new byte[iv.length + cipher.getOutputSize(c.length)];
+        System.arraycopy(iv, 0, bytes, 0, iv.length);
+        var length = cipher.doFinal(c, 0, c.length, bytes, iv.length);
+        return length == bytes.length - iv.length ? bytes : Arrays.copyOf(bytes, iv.length + length);
     }
 
     @Override
     @SneakyThrows
     public byte[] decrypt(byte[] c) {
-        ByteBuffer bb = ByteBuffer.wrap(c).order(ByteOrder.LITTLE_ENDIAN);
-        byte[] iv = new byte[IV_LENGTH_BYTE];
-        bb.get(iv);
-        byte[] cipherText = new byte[bb.remaining()];
-        bb.get(cipherText);
+        if (c.length < IV_LENGTH_BYTE) {
+            throw new IllegalArgumentException("Encrypted value is too short");
+        }
 
         SecretKey secretKey = getSecretKey();
         if (secretKey == null) {
             throw new IllegalStateException("Missing secret key");
         }
 
-        Cipher cipher = Cipher.getInstance(ENCRYPT_ALGO);
-        cipher.init(Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(TAG_LENGTH_BIT, iv));
-        return cipher.doFinal(cipherText);
+        // The iv and cipher text are read in place without copying them first
+        Cipher cipher = CIPHER.get();
+        cipher.init(Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(TAG_LENGTH_BIT, c, 0, IV_LENGTH_BYTE));
+        return cipher.doFinal(c, IV_LENGTH_BYTE, c.length - IV_LENGTH_BYTE);
     }
 }
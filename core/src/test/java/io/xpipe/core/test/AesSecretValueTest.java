@@ -0,0 +1,108 @@
+package io.xpipe.core.test;
+
+import io.xpipe.core.util.AesSecretValue;
+import io.xpipe.core.util.InPlaceSecretValue;
+import io.xpipe.core.util.SecretValue;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+
+public class AesSecretValueTest {
+
+    private static final SecretKey KEY;
+
+    static {
+        try {
+            var generator = KeyGenerator.getInstance("AES");
+            generator.init(256);
+            KEY = generator.generateKey();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class TestSecretValue extends AesSecretValue {
+
+        public TestSecretValue(String encryptedValue) {
+            super(encryptedValue);
+        }
+
+        public TestSecretValue(char[] secret) {
+            super(secret);
+        }
+
+        @Override
+        protected SecretKey getSecretKey() {
+            return KEY;
+        }
+
+        @Override
+        public InPlaceSecretValue inPlace() {
+            return new InPlaceSecretValue(getSecret());
+        }
+    }
+
+    @Test
+    public void testRoundTrip() {
+        for (int i = 0; i < 100; i++) {
+            var value = new TestSecretValue(("secret" + i).toCharArray());
+            var read = new TestSecretValue(value.getEncryptedValue());
+            Assertions.assertEquals("secret" + i, read.getSecretValue());
+        }
+    }
+
+    @Test
+    public void testRandomNonces() {
+        var first = new TestSecretValue("secret".toCharArray());
+        var second = new TestSecretValue("secret".toCharArray());
+        Assertions.assertNotEquals(first.getEncryptedValue(), second.getEncryptedValue());
+    }
+
+    @Test
+    public void testFixedNonceRepeatedEncryption() {
+        var first = InPlaceSecretValue.of("secret");
+        var second = InPlaceSecretValue.of("secret");
+        Assertions.assertEquals(first.getEncryptedValue(), second.getEncryptedValue());
+        Assertions.assertEquals("secret", second.getSecretValue());
+    }
+
+    @Test
+    public void testTamperedValue() {
+        var value = new TestSecretValue("secret".toCharArray());
+        var bytes = SecretValue.fromBase64e(value.getEncryptedValue());
+        bytes[bytes.length - 1] ^= 1;
+        var tampered = new TestSecretValue(SecretValue.toBase64e(bytes));
+        Assertions.assertEquals(0, tampered.getSecret().length);
+
+        // The cipher of this thread must still be usable afterwards
+        Assertions.assertEquals("secret", new TestSecretValue(value.getEncryptedValue()).getSecretValue());
+    }
+
+    @Test
+    public void testConcurrentUse() throws Exception {
+        try (var executor = Executors.newFixedThreadPool(8)) {
+            var tasks = new ArrayList<Callable<Boolean>>();
+            for (int i = 0; i < 32; i++) {
+                var text = "secret" + i;
+                tasks.add(() -> {
+                    for (int j = 0; j < 50; j++) {
+                        var value = new TestSecretValue(text.toCharArray());
+                        if (!text.equals(new TestSecretValue(value.getEncryptedValue()).getSecretValue())) {
+                            return false;
+                        }
+                    }
+                    return true;
+                });
+            }
+            for (var future : executor.invokeAll(tasks)) {
+                Assertions.assertTrue(future.get());
+            }
+        }
+    }
+}
@@ -57,6 +57,7 @@ open module io.xpipe.ext.base {
             CopyAction,
             CopyPathAction,
             PasteAction,
+            PasteSyncAction,
             NewItemAction,
             FileCompressAction,
             DirectoryCompressAction,